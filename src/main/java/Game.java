@@ -1,13 +1,22 @@
+import core.DifficultyTracker;
 import core.Importer;
 import core.Question;
+import core.QuestionSampler;
+import core.StatsStore;
 import core.UserInterface;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import network.Acceptor;
+import network.AdmissionPolicy;
 import network.Client;
+import network.Drainable;
+import network.GameRecorder;
 import network.Server;
+import network.Supervisor;
 
 /**
  * main class, start or join a game
@@ -16,10 +25,29 @@ public class Game implements Runnable {
 
   // use this as a default port
   private static final int PORT = 50000;
+  // system property with the file to record the game to, see network.Replay
+  private static final String RECORD_PROPERTY = "quiz.record";
+  // system property with the directory of the player statistics
+  private static final String STATS_PROPERTY = "quiz.stats";
+  private static final String DEFAULT_STATS_DIRECTORY = "stats";
+  // system property with the accept backlog, raise it for events where many players join at once
+  private static final String BACKLOG_PROPERTY = "quiz.backlog";
+  // how often the answer counters are folded into the difficulty of the questions
+  private static final long DIFFICULTY_FOLD_SECONDS = 30;
+  private static final String QUESTIONS_FILE =
+      "src/main/resources/ftoop_multiplayerquiz_fragenkatalog_2021.txt";
+  // how long a shutdown waits for the statistics to be written after the games are drained
+  private static final long CLOSE_SECONDS = 10;
   private final UserInterface ui = new UserInterface();
+  // the server or supervisor running, null while none is running
+  private volatile Drainable running;
+  private final CountDownLatch stopped = new CountDownLatch(1);
 
   public static void main(String[] args) {
-    new Game().run();
+    Game game = new Game();
+    // on SIGTERM running games get to finish, see Server.DRAIN_TIMEOUT_PROPERTY
+    Runtime.getRuntime().addShutdownHook(new Thread(game::shutdown, "shutdown"));
+    game.run();
   }
 
   /**
@@ -28,10 +56,36 @@ public class Game implements Runnable {
    */
   @Override
   public void run() {
-    switch (ui.showWelcomeScreen()) {
-      case 'n' -> createGame();
-      case 'j' -> joinGame();
-      default -> ui.showMessage("Goodbye");
+    try {
+      switch (ui.showWelcomeScreen()) {
+        case 'n' -> createGame();
+        case 's' -> createShardedGame();
+        case 'j' -> joinGame();
+        default -> ui.showMessage("Goodbye");
+      }
+    } finally {
+      stopped.countDown();
+    }
+  }
+
+  /**
+   * drain the running server or supervisor and wait until the game has cleaned up
+   */
+  private void shutdown() {
+    Drainable current = running;
+    if (current == null) {
+      return;
+    }
+    long timeout = Long.getLong(Server.DRAIN_TIMEOUT_PROPERTY, Server.DEFAULT_DRAIN_SECONDS);
+    ui.showMessage(String.format("Shutting down, waiting up to %d s for running games",
+        timeout));
+    try {
+      if (!current.drain(timeout, TimeUnit.SECONDS)) {
+        ui.showError("Not all games finished in time");
+      }
+      stopped.await(CLOSE_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 
@@ -42,8 +96,7 @@ public class Game implements Runnable {
     List<Question> questions;
     try {
       //load questions using the importer
-      Importer questionsFile = new Importer(
-          "src/main/resources/ftoop_multiplayerquiz_fragenkatalog_2021.txt");
+      Importer questionsFile = new Importer(QUESTIONS_FILE);
       questions = questionsFile.getQuestions();
       ui.showMessage("Questions loaded");
     } catch (FileNotFoundException ex) {
@@ -53,40 +106,112 @@ public class Game implements Runnable {
     //get number of players and questions to play with
     int players = ui.getNumberOfPlayers();
     int numQuestions = ui.getNumberOfQuestions(questions.size());
-    try {
-      var server = new Server(ui, PORT, players, randomSubList(questions, numQuestions));
+    try (var stats = new StatsStore(statsDirectory());
+        var difficulty = openDifficulty(questions)) {
+      difficulty.seed(stats.getQuestions());
+      var server = new Server(ui, PORT,
+          Integer.getInteger(BACKLOG_PROPERTY, Acceptor.DEFAULT_BACKLOG), players,
+          new QuestionSampler(difficulty).sample(questions, numQuestions,
+              QuestionSampler.DEFAULT_CURVE));
+      server.setAdmissionPolicy(AdmissionPolicy.fromSystemProperties());
+      server.setRateLimit(ratePerIp(), burstPerIp());
+      String recording = System.getProperty(RECORD_PROPERTY);
+      if (recording != null) {
+        server.setRecorder(new GameRecorder(Path.of(recording)));
+      }
+      server.setStatsStore(stats);
+      server.setDifficultyTracker(difficulty);
       ui.showMessage("Creating game");
-      //by design, no other thread needed
+      running = server;
+      //the game runs on this thread, the shutdown hook drains it from its own thread
       server.run();
     } catch (IOException e) {
       ui.showError("Could not create game: " + e.getMessage());
     }
   }
 
+  /**
+   * start a server hosting many rooms, distributed over several shards
+   */
+  private void createShardedGame() {
+    List<Question> questions;
+    try {
+      questions = new Importer(QUESTIONS_FILE).getQuestions();
+      ui.showMessage("Questions loaded");
+    } catch (FileNotFoundException ex) {
+      ui.showError("Questions file not found");
+      return;
+    }
+    int shards = ui.getNumberOfShards();
+    int players = ui.getNumberOfPlayers();
+    int numQuestions = ui.getNumberOfQuestions(questions.size());
+    boolean workers = ui.useWorkerProcesses();
+    var supervisor = new Supervisor(ui, PORT, shards);
+    supervisor.setAdmissionPolicy(AdmissionPolicy.fromSystemProperties());
+    supervisor.setRateLimit(ratePerIp(), burstPerIp());
+    supervisor.setBacklog(Integer.getInteger(BACKLOG_PROPERTY, Acceptor.DEFAULT_BACKLOG));
+    try (var difficulty = openDifficulty(questions)) {
+      supervisor.setDifficultyTracker(difficulty);
+      if (workers) {
+        supervisor.startWorkers(players, QUESTIONS_FILE, numQuestions, statsDirectory());
+      } else {
+        var sampler = new QuestionSampler(difficulty);
+        supervisor.startShards(players,
+            () -> sampler.sample(questions, numQuestions, QuestionSampler.DEFAULT_CURVE));
+      }
+      running = supervisor;
+      supervisor.run();
+    } catch (IOException e) {
+      ui.showError("Could not start shards: " + e.getMessage());
+    }
+  }
+
+  /**
+   * @return where the statistics are kept, see STATS_PROPERTY
+   */
+  private static Path statsDirectory() {
+    return Path.of(System.getProperty(STATS_PROPERTY, DEFAULT_STATS_DIRECTORY));
+  }
+
+  /**
+   * @return connections per second a single address may open, see Acceptor.RATE_PROPERTY
+   */
+  private static double ratePerIp() {
+    String rate = System.getProperty(Acceptor.RATE_PROPERTY);
+    return rate != null ? Double.parseDouble(rate) : Acceptor.DEFAULT_RATE;
+  }
+
+  /**
+   * @return connections a single address may open at once, see Acceptor.BURST_PROPERTY
+   */
+  private static int burstPerIp() {
+    return Integer.getInteger(Acceptor.BURST_PROPERTY, Acceptor.DEFAULT_BURST);
+  }
+
+  /**
+   * load the difficulty of the questions and keep updating it while games are running
+   * @param questions the catalog
+   * @return the tracker, closing it writes the final scores
+   * @throws IOException if the stored difficulty can not be read
+   */
+  private DifficultyTracker openDifficulty(List<Question> questions) throws IOException {
+    var difficulty = new DifficultyTracker(questions.size(),
+        DifficultyTracker.fileFor(QUESTIONS_FILE));
+    difficulty.startFolding(DIFFICULTY_FOLD_SECONDS, TimeUnit.SECONDS);
+    return difficulty;
+  }
+
   /**
    * join a game as a client
    */
   private void joinGame() {
     try {
       var client = new Client(ui, PORT);
-      //by design, no other thread needed
+      //returns when the game is over, the client reads the server and the input on own threads
       client.run();
       ui.showMessage("joined game");
     } catch (IOException e) {
       ui.showError("Failed to join: " + e.getMessage());
     }
   }
-
-  /**
-   * get a random subset of the questions list
-   * https://stackoverflow.com/questions/28582726/java-retrieve-a-random-discontinuous-sublist-of-an-arraylist-most-efficient-wa
-   * @param list input list
-   * @param newSize number of elements to take
-   * @return random sublist of the input
-   */
-  public static List<Question> randomSubList(List<Question> list, int newSize) {
-    list = new ArrayList<>(list);
-    Collections.shuffle(list);
-    return list.subList(0, newSize);
-  }
 }
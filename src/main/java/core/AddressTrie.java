@@ -0,0 +1,81 @@
+package core;
+
+/**
+ * Binary prefix trie mapping address ranges to values
+ * A lookup walks at most one node per address bit, so it takes O(prefix length) no matter how
+ * many ranges are stored. IPv4 and IPv6 ranges are kept in separate trees
+ * @param <V> value stored per range
+ */
+public class AddressTrie<V> {
+
+  private final Node<V> ipv4Root = new Node<>();
+  private final Node<V> ipv6Root = new Node<>();
+  private int size = 0;
+
+  /**
+   * store a value for a range, replaces the value if the range is already present
+   * @param range the address range
+   * @param value the value to store
+   */
+  public synchronized void put(IpAddress.Range range, V value) {
+    byte[] address = range.address();
+    Node<V> node = root(address);
+    for (int bit = 0; bit < range.prefixLength(); bit++) {
+      if (bitAt(address, bit)) {
+        if (node.one == null) {
+          node.one = new Node<>();
+        }
+        node = node.one;
+      } else {
+        if (node.zero == null) {
+          node.zero = new Node<>();
+        }
+        node = node.zero;
+      }
+    }
+    if (node.value == null) {
+      size++;
+    }
+    node.value = value;
+  }
+
+  /**
+   * find the value of the most specific range containing the address
+   * @param address 4 or 16 bytes in network order
+   * @return the value or null if no range contains the address
+   */
+  public synchronized V longestMatch(byte[] address) {
+    Node<V> node = root(address);
+    V match = node.value;
+    for (int bit = 0; bit < address.length * 8 && node != null; bit++) {
+      node = bitAt(address, bit) ? node.one : node.zero;
+      if (node != null && node.value != null) {
+        match = node.value;
+      }
+    }
+    return match;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private Node<V> root(byte[] address) {
+    return switch (address.length) {
+      case 4 -> ipv4Root;
+      case 16 -> ipv6Root;
+      default -> throw new IllegalArgumentException("Invalid address length " + address.length);
+    };
+  }
+
+  private static boolean bitAt(byte[] address, int bit) {
+    return (address[bit >> 3] & (0x80 >> (bit & 7))) != 0;
+  }
+
+  private static class Node<V> {
+
+    private Node<V> zero;
+    private Node<V> one;
+    private V value;
+  }
+}
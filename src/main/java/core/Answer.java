@@ -1,9 +1,9 @@
 package core;
 
 /**
- * Record holding an answer and the player which gave it
+ * Record holding an answer, the player which gave it and how long the player took to react
  */
-public record Answer(char answer, Player player) {
+public record Answer(char answer, Player player, long reactionNanos) {
 
   public char getAnswer() {
     return answer;
@@ -12,4 +12,8 @@ public record Answer(char answer, Player player) {
   public Player getPlayer() {
     return player;
   }
+
+  public long getReactionNanos() {
+    return reactionNanos;
+  }
 }
@@ -9,6 +9,9 @@ public class Commands {
   public static final String ANSWER = "Answer";
   public static final String GET_ANSWER = "GetAnswer";
   public static final String END_GAME = "EndGame";
+  public static final String JOIN_ROOM = "JoinRoom";
+  public static final String PING = "Ping";
+  public static final String PONG = "Pong";
 
   /**
    * hide the implicit public constructor
@@ -0,0 +1,31 @@
+package core;
+
+/**
+ * Target difficulty for each position of a game, 0 is trivial and 1 is the hardest
+ */
+public interface DifficultyCurve {
+
+  /**
+   * @param position index of the question in the game, starting at 0
+   * @param count    number of questions in the game
+   * @return the desired difficulty
+   */
+  double target(int position, int count);
+
+  /**
+   * @param from difficulty of the first question
+   * @param to   difficulty of the last question
+   * @return a curve rising (or falling) linearly
+   */
+  static DifficultyCurve ramp(double from, double to) {
+    return (position, count) -> count <= 1 ? from : from + (to - from) * position / (count - 1);
+  }
+
+  /**
+   * @param difficulty difficulty of every question
+   * @return a flat curve
+   */
+  static DifficultyCurve constant(double difficulty) {
+    return (position, count) -> difficulty;
+  }
+}
@@ -0,0 +1,338 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Difficulty of the questions of a catalog, learned from how they are answered
+ * Answers of all rooms are counted lock-free per question, from time to time the counters are
+ * folded into a score between 0 (everyone knows it at once) and 1 (nobody knows it, or only
+ * after a long time). The totals and scores are kept in a text file next to the catalog
+ * Worker processes only write their own counts to a file of their own, the process owning the
+ * scores file merges these files into its scores
+ */
+public class DifficultyTracker implements Closeable {
+
+  // score of a question without any answers
+  public static final double UNKNOWN = 0.5;
+  // a question starts as if it was answered this many times with a correct rate of 50%
+  private static final int PRIOR_WEIGHT = 4;
+  // reactions this slow count as maximal difficulty
+  private static final long SLOW_NANOS = 20_000_000_000L;
+  // share of the reaction time in the score, the rest is the wrong answer rate
+  private static final double REACTION_WEIGHT = 0.3;
+  private final Path file;
+  private final QuestionCounters[] counters;
+  // totals from before this process, read from the file or seeded from the statistics
+  private final long[] baseAsked;
+  private final long[] baseCorrect;
+  private final long[] baseMedian;
+  private volatile double[] scores;
+  private ScheduledExecutorService folder;
+  // set in a worker process, fold then writes the own counts there instead of the scores
+  private Path countsFile;
+  // counts of worker processes, merged into the scores by fold
+  private List<Path> mergedCounts = List.of();
+  // content of the last write, unchanged results are not written again
+  private String lastWritten;
+
+  /**
+   * create a tracker, previous results are read from the file if it exists
+   * @param catalogSize number of questions in the catalog, ids go from 0 to catalogSize - 1
+   * @param file        where to keep the results
+   * @throws IOException if the file exists but can not be read
+   */
+  public DifficultyTracker(int catalogSize, Path file) throws IOException {
+    this.file = file;
+    counters = new QuestionCounters[catalogSize];
+    baseAsked = new long[catalogSize];
+    baseCorrect = new long[catalogSize];
+    baseMedian = new long[catalogSize];
+    double[] initial = new double[catalogSize];
+    for (int i = 0; i < catalogSize; i++) {
+      counters[i] = new QuestionCounters();
+      baseMedian[i] = -1;
+      initial[i] = UNKNOWN;
+    }
+    scores = initial;
+    if (Files.exists(file)) {
+      load();
+    }
+  }
+
+  /**
+   * @param catalog path of the questions file
+   * @return the file to keep the difficulty of that catalog in
+   */
+  public static Path fileFor(String catalog) {
+    return Path.of(catalog + ".difficulty");
+  }
+
+  /**
+   * @param directory where the supervisor keeps its data, e.g. the statistics directory
+   * @param shardPort port of the worker shard
+   * @return the file a worker shares its counts in
+   */
+  public static Path countsFileFor(Path directory, int shardPort) {
+    return directory.resolve("difficulty-counts-" + shardPort);
+  }
+
+  /**
+   * let fold write the answers counted by this process to a file instead of updating the scores
+   * used in a worker process, the scores are read again from the scores file on every fold
+   * @param countsFile where to write the counts, see countsFileFor
+   */
+  public synchronized void shareCountsVia(Path countsFile) {
+    this.countsFile = countsFile;
+  }
+
+  /**
+   * let fold add the answers counted by worker processes
+   * @param countsFiles the files the workers share their counts in, missing files are skipped
+   */
+  public synchronized void mergeCountsFrom(List<Path> countsFiles) {
+    this.mergedCounts = List.copyOf(countsFiles);
+  }
+
+  /**
+   * use the lifetime statistics for questions which are not in the file yet
+   * @param questions statistics of the questions, e.g. from the StatsStore
+   */
+  public synchronized void seed(List<QuestionStats> questions) {
+    for (QuestionStats stats : questions) {
+      int id = stats.questionId();
+      if (id >= 0 && id < counters.length && baseAsked[id] == 0) {
+        baseAsked[id] = stats.asked();
+        baseCorrect[id] = stats.correct();
+      }
+    }
+  }
+
+  /**
+   * count an answer, cheap enough to be called for every answer of every round
+   * @param questionId    id of the question, answers to unknown questions are ignored
+   * @param correct       whether the answer was correct
+   * @param reactionNanos how long the player took to answer
+   */
+  public void record(int questionId, boolean correct, long reactionNanos) {
+    if (questionId >= 0 && questionId < counters.length) {
+      counters[questionId].record(correct, reactionNanos);
+    }
+  }
+
+  /**
+   * @param questionId id of the question
+   * @return the score as of the last fold, UNKNOWN for questions not in the catalog
+   */
+  public double getDifficulty(int questionId) {
+    double[] current = scores;
+    return questionId >= 0 && questionId < current.length ? current[questionId] : UNKNOWN;
+  }
+
+  /**
+   * @return the scores of all questions as of the last fold, indexed by question id
+   */
+  public double[] getDifficulties() {
+    return scores.clone();
+  }
+
+  /**
+   * fold the counters into new scores every period, until the tracker is closed
+   * @param period time between two folds
+   * @param unit   unit of the period
+   */
+  public synchronized void startFolding(long period, TimeUnit unit) {
+    if (folder != null) {
+      return;
+    }
+    folder = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "difficulty-folder");
+      thread.setDaemon(true);
+      return thread;
+    });
+    folder.scheduleAtFixedRate(() -> {
+      try {
+        fold();
+      } catch (IOException e) {
+        // retried with the next fold
+      }
+    }, period, period, unit);
+  }
+
+  /**
+   * compute new scores from all answers counted so far and write them to the file
+   * in a worker process only the own counts are written and the scores are read again
+   * @throws IOException if a file can not be read or written
+   */
+  public synchronized void fold() throws IOException {
+    if (countsFile != null) {
+      write(countsFile, formatCounts());
+      if (Files.exists(file)) {
+        load();
+      }
+      return;
+    }
+    int size = counters.length;
+    long[] asked = new long[size];
+    long[] correct = new long[size];
+    long[][] reactions = new long[size][QuestionCounters.BUCKETS];
+    for (int i = 0; i < size; i++) {
+      asked[i] = counters[i].getAsked();
+      correct[i] = counters[i].getCorrect();
+      counters[i].addReactionsTo(reactions[i]);
+    }
+    for (Path counts : mergedCounts) {
+      if (Files.exists(counts)) {
+        readCounts(counts, asked, correct, reactions);
+      }
+    }
+    double[] next = new double[size];
+    StringBuilder out = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      long median = median(i, asked[i], QuestionCounters.median(reactions[i]));
+      long totalAsked = baseAsked[i] + asked[i];
+      long totalCorrect = baseCorrect[i] + correct[i];
+      next[i] = score(totalAsked, totalCorrect, median);
+      out.append(String.format(Locale.ROOT, "%d;%.4f;%d;%d;%d%n", i, next[i], totalAsked,
+          totalCorrect, median));
+    }
+    scores = next;
+    write(file, out.toString());
+  }
+
+  /**
+   * stop folding and write the final scores
+   * @throws IOException if the file can not be written
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (folder != null) {
+      // not interrupted, a fold waiting for the lock would fail to write its file
+      folder.shutdown();
+      folder = null;
+    }
+    fold();
+  }
+
+  /**
+   * @param asked   how often the question was answered
+   * @param correct how often the answer was correct
+   * @param median  median reaction time, -1 if unknown
+   * @return difficulty between 0 and 1
+   */
+  static double score(long asked, long correct, long median) {
+    double correctRate = (correct + 0.5 * PRIOR_WEIGHT) / (asked + PRIOR_WEIGHT);
+    double slowness = median < 0 ? UNKNOWN : Math.min(1.0, (double) median / SLOW_NANOS);
+    return (1 - REACTION_WEIGHT) * (1 - correctRate) + REACTION_WEIGHT * slowness;
+  }
+
+  /**
+   * median of the stored and the new reactions, weighted by their number of answers
+   * @param id         id of the question
+   * @param newAnswers answers counted since the start of this process
+   * @param newMedian  median of these answers, -1 if there are none
+   */
+  private long median(int id, long newAnswers, long newMedian) {
+    if (newMedian < 0) {
+      return baseMedian[id];
+    }
+    if (baseMedian[id] < 0) {
+      return newMedian;
+    }
+    return (baseMedian[id] * baseAsked[id] + newMedian * newAnswers)
+        / (baseAsked[id] + newAnswers);
+  }
+
+  /**
+   * one line per question: id;asked;correct;bucket:count,... with the non empty buckets
+   */
+  private String formatCounts() {
+    StringBuilder out = new StringBuilder();
+    long[] reactions = new long[QuestionCounters.BUCKETS];
+    for (int i = 0; i < counters.length; i++) {
+      if (counters[i].getAsked() == 0) {
+        continue;
+      }
+      out.append(i).append(';').append(counters[i].getAsked()).append(';')
+          .append(counters[i].getCorrect()).append(';');
+      Arrays.fill(reactions, 0);
+      counters[i].addReactionsTo(reactions);
+      String separator = "";
+      for (int bucket = 0; bucket < reactions.length; bucket++) {
+        if (reactions[bucket] > 0) {
+          out.append(separator).append(bucket).append(':').append(reactions[bucket]);
+          separator = ",";
+        }
+      }
+      out.append(System.lineSeparator());
+    }
+    return out.toString();
+  }
+
+  private void readCounts(Path counts, long[] asked, long[] correct, long[][] reactions)
+      throws IOException {
+    for (String line : Files.readAllLines(counts, StandardCharsets.UTF_8)) {
+      String[] fields = line.split(";", -1);
+      try {
+        int id = Integer.parseInt(fields[0]);
+        if (id < 0 || id >= counters.length) {
+          continue;
+        }
+        asked[id] += Long.parseLong(fields[1]);
+        correct[id] += Long.parseLong(fields[2]);
+        for (String bucket : fields[3].split(",")) {
+          if (!bucket.isEmpty()) {
+            String[] entry = bucket.split(":");
+            reactions[id][Integer.parseInt(entry[0])] += Long.parseLong(entry[1]);
+          }
+        }
+      } catch (RuntimeException e) {
+        throw new IOException("Invalid difficulty counts in " + counts + ": " + line);
+      }
+    }
+  }
+
+  /**
+   * replace a file atomically, nothing is written if the content did not change
+   */
+  private void write(Path target, String content) throws IOException {
+    if (content.equals(lastWritten)) {
+      return;
+    }
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    Files.writeString(temp, content, StandardCharsets.UTF_8);
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    lastWritten = content;
+  }
+
+  private void load() throws IOException {
+    double[] loaded = scores.clone();
+    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      String[] fields = line.split(";");
+      try {
+        int id = Integer.parseInt(fields[0]);
+        if (id < 0 || id >= counters.length) {
+          continue;
+        }
+        loaded[id] = Double.parseDouble(fields[1]);
+        baseAsked[id] = Long.parseLong(fields[2]);
+        baseCorrect[id] = Long.parseLong(fields[3]);
+        baseMedian[id] = Long.parseLong(fields[4]);
+      } catch (RuntimeException e) {
+        throw new IOException("Invalid difficulty entry in " + file + ": " + line);
+      }
+    }
+    scores = loaded;
+  }
+}
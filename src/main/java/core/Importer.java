@@ -76,7 +76,8 @@ public record Importer(String fileName) {
           correctAnswer = 'C';
         }
 
-        questions.add(new Question(question, answerA, answerB, answerC, correctAnswer));
+        questions.add(
+            new Question(questions.size(), question, answerA, answerB, answerC, correctAnswer));
       }
     }
     return questions;
@@ -0,0 +1,188 @@
+package core;
+
+/**
+ * Parses IPv4 and IPv6 addresses and CIDR ranges without regular expressions
+ */
+public class IpAddress {
+
+  /**
+   * hide the implicit public constructor
+   */
+  private IpAddress() {
+  }
+
+  /**
+   * parse an IPv4 address like 10.0.0.1 or an IPv6 address like fe80::1
+   * @param text the address
+   * @return 4 or 16 bytes in network order, null if the text is no valid address
+   */
+  public static byte[] parse(String text) {
+    if (text.indexOf(':') >= 0) {
+      return parseIPv6(text);
+    }
+    return parseIPv4(text, 0, text.length());
+  }
+
+  /**
+   * parse a CIDR range like 192.168.0.0/16, an address without prefix length is a single host
+   * @param text the range
+   * @return the range or null if the text is no valid range
+   */
+  public static Range parseRange(String text) {
+    int slash = text.indexOf('/');
+    byte[] address = parse(slash < 0 ? text : text.substring(0, slash));
+    if (address == null) {
+      return null;
+    }
+    int maxLength = address.length * 8;
+    if (slash < 0) {
+      return new Range(address, maxLength);
+    }
+    int prefixLength = parseNumber(text, slash + 1, text.length(), 10, 3);
+    if (prefixLength < 0 || prefixLength > maxLength) {
+      return null;
+    }
+    return new Range(address, prefixLength);
+  }
+
+  /**
+   * parse a dotted IPv4 address, leading zeros are not allowed
+   */
+  private static byte[] parseIPv4(String text, int from, int to) {
+    byte[] address = new byte[4];
+    int part = 0;
+    int start = from;
+    for (int i = from; i <= to; i++) {
+      if (i < to && text.charAt(i) != '.') {
+        continue;
+      }
+      if (part == 4 || i - start > 1 && text.charAt(start) == '0') {
+        return null;
+      }
+      int value = parseNumber(text, start, i, 10, 3);
+      if (value < 0 || value > 255) {
+        return null;
+      }
+      address[part++] = (byte) value;
+      start = i + 1;
+    }
+    return part == 4 ? address : null;
+  }
+
+  /**
+   * parse an IPv6 address with optional :: and an optional IPv4 address in the last 32 bits
+   */
+  private static byte[] parseIPv6(String text) {
+    byte[] address = new byte[16];
+    int length = text.length();
+    int gap = -1;
+    int index = 0;
+    int start = 0;
+    if (text.startsWith("::")) {
+      gap = 0;
+      start = 2;
+      if (length == 2) {
+        return address;
+      }
+    } else if (text.startsWith(":")) {
+      return null;
+    }
+    while (start < length) {
+      int end = text.indexOf(':', start);
+      if (end < 0) {
+        end = length;
+      }
+      if (end == start) {
+        //a second :: or a trailing single :
+        return null;
+      }
+      if (end == length && text.indexOf('.', start) >= 0) {
+        byte[] ipv4 = parseIPv4(text, start, end);
+        if (ipv4 == null || index > 12) {
+          return null;
+        }
+        System.arraycopy(ipv4, 0, address, index, 4);
+        index += 4;
+        break;
+      }
+      int group = parseNumber(text, start, end, 16, 4);
+      if (group < 0 || index > 14) {
+        return null;
+      }
+      address[index++] = (byte) (group >> 8);
+      address[index++] = (byte) group;
+      if (end == length) {
+        break;
+      }
+      if (end + 1 < length && text.charAt(end + 1) == ':') {
+        if (gap >= 0) {
+          return null;
+        }
+        gap = index;
+        start = end + 2;
+      } else if (end + 1 == length) {
+        return null;
+      } else {
+        start = end + 1;
+      }
+    }
+    if (gap < 0) {
+      return index == 16 ? address : null;
+    }
+    if (index == 16) {
+      //:: has to stand for at least one group
+      return null;
+    }
+    //move the groups after :: to the end
+    int tail = index - gap;
+    System.arraycopy(address, gap, address, 16 - tail, tail);
+    for (int i = gap; i < 16 - tail; i++) {
+      address[i] = 0;
+    }
+    return address;
+  }
+
+  /**
+   * @return the number in text[from] to text[to - 1], -1 if it is empty, too long or invalid
+   */
+  private static int parseNumber(String text, int from, int to, int radix, int maxDigits) {
+    if (from >= to || to - from > maxDigits) {
+      return -1;
+    }
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      int digit = asciiDigit(text.charAt(i));
+      if (digit < 0 || digit >= radix) {
+        return -1;
+      }
+      value = value * radix + digit;
+    }
+    return value;
+  }
+
+  /**
+   * unlike Character.digit only ASCII is accepted, no other Unicode digits or letters
+   * @return the value of 0-9, a-f or A-F, -1 for any other character
+   */
+  private static int asciiDigit(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    }
+    if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    }
+    if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    return -1;
+  }
+
+  /**
+   * A CIDR range, only the first prefixLength bits of the address are relevant
+   * @param address      4 or 16 bytes in network order
+   * @param prefixLength number of leading bits which have to match
+   */
+  public record Range(byte[] address, int prefixLength) {
+
+  }
+}
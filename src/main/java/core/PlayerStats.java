@@ -0,0 +1,32 @@
+package core;
+
+/**
+ * Lifetime statistics of a player, also used for the changes of a single game
+ * @param name               name of the player
+ * @param gamesPlayed        number of games played
+ * @param points             points scored
+ * @param answers            questions answered
+ * @param correctAnswers     questions answered correctly
+ * @param totalReactionNanos sum of the reaction times of all answers
+ */
+public record PlayerStats(String name, int gamesPlayed, long points, long answers,
+                          long correctAnswers, long totalReactionNanos) {
+
+  /**
+   * @param other changes to add, has to belong to the same player
+   * @return the sum of both statistics
+   */
+  public PlayerStats add(PlayerStats other) {
+    return new PlayerStats(name, gamesPlayed + other.gamesPlayed, points + other.points,
+        answers + other.answers, correctAnswers + other.correctAnswers,
+        totalReactionNanos + other.totalReactionNanos);
+  }
+
+  public long getAverageReactionNanos() {
+    return answers == 0 ? 0 : totalReactionNanos / answers;
+  }
+
+  public double getCorrectRate() {
+    return answers == 0 ? 0 : (double) correctAnswers / answers;
+  }
+}
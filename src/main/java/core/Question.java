@@ -5,6 +5,8 @@ package core;
  */
 public class Question {
 
+  // position in the catalog, -1 if unknown
+  private final int id;
   private final String question;
   private final String answerA;
   private final String answerB;
@@ -13,6 +15,12 @@ public class Question {
 
   public Question(String question, String answerA, String answerB, String answerC,
       char correctAnswer) {
+    this(-1, question, answerA, answerB, answerC, correctAnswer);
+  }
+
+  public Question(int id, String question, String answerA, String answerB, String answerC,
+      char correctAnswer) {
+    this.id = id;
     this.question = question;
     this.answerA = answerA;
     this.answerB = answerB;
@@ -35,6 +43,10 @@ public class Question {
     return "No correct answer found";
   }
 
+  public int getId() {
+    return id;
+  }
+
   public String getQuestion() {
     return question;
   }
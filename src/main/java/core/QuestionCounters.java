@@ -0,0 +1,82 @@
+package core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live answer counters of a single question, updated lock-free from all rooms
+ * Reaction times are counted in a histogram with 100 ms buckets, which is enough to get a
+ * median without storing every single time
+ */
+public class QuestionCounters {
+
+  private static final long BUCKET_NANOS = 100_000_000L;
+  // 30 seconds, slower reactions are counted in the last bucket
+  static final int BUCKETS = 300;
+  private final LongAdder asked = new LongAdder();
+  private final LongAdder correct = new LongAdder();
+  private final AtomicLongArray reactions = new AtomicLongArray(BUCKETS);
+
+  /**
+   * count an answer
+   * @param isCorrect     whether the answer was correct
+   * @param reactionNanos how long the player took to answer
+   */
+  public void record(boolean isCorrect, long reactionNanos) {
+    asked.increment();
+    if (isCorrect) {
+      correct.increment();
+    }
+    int bucket = (int) Math.min(BUCKETS - 1, Math.max(0, reactionNanos / BUCKET_NANOS));
+    reactions.incrementAndGet(bucket);
+  }
+
+  public long getAsked() {
+    return asked.sum();
+  }
+
+  public long getCorrect() {
+    return correct.sum();
+  }
+
+  /**
+   * @return median reaction time (middle of its bucket), -1 if no answer was counted
+   */
+  public long getMedianReactionNanos() {
+    long[] counts = new long[BUCKETS];
+    addReactionsTo(counts);
+    return median(counts);
+  }
+
+  /**
+   * add the reaction histogram to the given one, e.g. to merge the counters of several processes
+   * @param counts histogram with BUCKETS entries
+   */
+  void addReactionsTo(long[] counts) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += reactions.get(i);
+    }
+  }
+
+  /**
+   * @param counts reaction histogram with BUCKETS entries
+   * @return median reaction time (middle of its bucket), -1 if the histogram is empty
+   */
+  static long median(long[] counts) {
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    if (total == 0) {
+      return -1;
+    }
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen * 2 >= total) {
+        return i * BUCKET_NANOS + BUCKET_NANOS / 2;
+      }
+    }
+    return (BUCKETS - 1) * BUCKET_NANOS;
+  }
+}
@@ -0,0 +1,66 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks the questions of a game so their difficulty follows a curve
+ * For each position one of the few questions closest to the target is taken at random, so
+ * games with the same curve still differ
+ */
+public class QuestionSampler {
+
+  // games start easy and get harder towards the end
+  public static final DifficultyCurve DEFAULT_CURVE = DifficultyCurve.ramp(0.3, 0.7);
+  // how many of the closest questions are considered for each position
+  private static final int CHOICES = 3;
+  private final DifficultyTracker tracker;
+  private final Random random;
+
+  /**
+   * @param tracker provides the difficulty of the questions
+   */
+  public QuestionSampler(DifficultyTracker tracker) {
+    this(tracker, new Random());
+  }
+
+  /**
+   * @param tracker provides the difficulty of the questions
+   * @param random  source of randomness, a seeded one gives reproducible games
+   */
+  public QuestionSampler(DifficultyTracker tracker, Random random) {
+    this.tracker = tracker;
+    this.random = random;
+  }
+
+  /**
+   * build a game from the catalog
+   * @param catalog all questions to choose from
+   * @param count   number of questions in the game, at most the size of the catalog
+   * @param curve   desired difficulty per position
+   * @return the questions in the order they should be asked
+   */
+  public List<Question> sample(List<Question> catalog, int count, DifficultyCurve curve) {
+    List<Question> remaining = new ArrayList<>(catalog);
+    // shuffled first so questions with equal difficulty are picked in random order
+    Collections.shuffle(remaining, random);
+    // one snapshot for the whole game, a fold in between must not change the order while sorting
+    double[] difficulties = tracker.getDifficulties();
+    List<Question> game = new ArrayList<>(count);
+    for (int position = 0; position < count; position++) {
+      double target = curve.target(position, count);
+      remaining.sort(Comparator.comparingDouble(
+          question -> Math.abs(difficultyOf(difficulties, question) - target)));
+      game.add(remaining.remove(random.nextInt(Math.min(CHOICES, remaining.size()))));
+    }
+    return game;
+  }
+
+  private static double difficultyOf(double[] difficulties, Question question) {
+    int id = question.getId();
+    return id >= 0 && id < difficulties.length ? difficulties[id] : DifficultyTracker.UNKNOWN;
+  }
+}
@@ -0,0 +1,22 @@
+package core;
+
+/**
+ * How often a question of the catalog was answered and how often correctly
+ * @param questionId position of the question in the catalog
+ * @param asked      number of answers given
+ * @param correct    number of correct answers
+ */
+public record QuestionStats(int questionId, long asked, long correct) {
+
+  /**
+   * @param other changes to add, has to belong to the same question
+   * @return the sum of both statistics
+   */
+  public QuestionStats add(QuestionStats other) {
+    return new QuestionStats(questionId, asked + other.asked, correct + other.correct);
+  }
+
+  public double getCorrectRate() {
+    return asked == 0 ? 0 : (double) correct / asked;
+  }
+}
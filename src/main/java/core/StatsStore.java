@@ -0,0 +1,430 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Embedded store for player and question statistics across games
+ * Changes are appended to a log file, an index file holds a compacted snapshot of all totals.
+ * When the log grows too large a new snapshot is written and the log starts over with the
+ * next generation. Writes are queued and committed in batches by a background thread with one
+ * fsync per batch, reads are answered from an in-memory cache
+ */
+public class StatsStore implements Closeable {
+
+  private static final int INDEX_MAGIC = 0x51535458;
+  private static final byte PLAYER = 'P';
+  private static final byte QUESTION = 'Q';
+  private static final int MAX_BATCH = 256;
+  private static final long DEFAULT_COMPACT_SIZE = 1024 * 1024;
+  private static final String INDEX_FILE = "stats.idx";
+  private final Path directory;
+  private final long compactSize;
+  private final Map<String, PlayerStats> players = new ConcurrentHashMap<>();
+  private final Map<Integer, QuestionStats> questions = new ConcurrentHashMap<>();
+  private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private long generation;
+  private FileChannel log;
+  // last write error not reported yet, taken by the next flush or close
+  private final AtomicReference<IOException> failure = new AtomicReference<>();
+  // set by the writer if a failed write could not be rolled back, the log end is unknown then
+  private boolean logBroken;
+
+  /**
+   * open or create a store
+   * @param directory where to keep the files
+   * @throws IOException if existing files can not be read
+   */
+  public StatsStore(Path directory) throws IOException {
+    this(directory, DEFAULT_COMPACT_SIZE);
+  }
+
+  /**
+   * open or create a store
+   * @param directory   where to keep the files
+   * @param compactSize log size in bytes after which a new snapshot is written
+   * @throws IOException if existing files can not be read
+   */
+  public StatsStore(Path directory, long compactSize) throws IOException {
+    this.directory = directory;
+    this.compactSize = compactSize;
+    Files.createDirectories(directory);
+    readIndex();
+    log = FileChannel.open(logFile(generation), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    replayLog();
+    deleteOldLogs();
+    writer = new Thread(this::writeLoop, "stats-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * queue the results of a game for a player, returns without waiting for the disk
+   * @param game statistics of the game, gamesPlayed is usually 1
+   */
+  public void record(PlayerStats game) {
+    queue.add(new PlayerEntry(game));
+  }
+
+  /**
+   * queue how a question was answered in a game, returns without waiting for the disk
+   * @param round statistics of the question
+   */
+  public void record(QuestionStats round) {
+    queue.add(new QuestionEntry(round));
+  }
+
+  /**
+   * wait until everything queued so far is written and visible in the cache
+   * @throws IOException if writing failed since the last flush, the failed batch is lost
+   */
+  public void flush() throws IOException {
+    CountDownLatch done = new CountDownLatch(1);
+    queue.add(new FlushEntry(done));
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    IOException pending = failure.getAndSet(null);
+    if (pending != null) {
+      throw pending;
+    }
+  }
+
+  /**
+   * @param name name of the player
+   * @return lifetime statistics or null if the player never played
+   */
+  public PlayerStats get(String name) {
+    return players.get(name);
+  }
+
+  /**
+   * @param questionId position of the question in the catalog
+   * @return statistics or null if the question was never asked
+   */
+  public QuestionStats getQuestion(int questionId) {
+    return questions.get(questionId);
+  }
+
+  /**
+   * @return statistics of all questions asked so far
+   */
+  public List<QuestionStats> getQuestions() {
+    return new ArrayList<>(questions.values());
+  }
+
+  /**
+   * @param limit maximum number of players
+   * @return the players with the most points of all time
+   */
+  public List<PlayerStats> ranking(int limit) {
+    return players.values().stream()
+        .sorted(Comparator.comparingLong(PlayerStats::points).reversed()
+            .thenComparing(PlayerStats::name))
+        .limit(limit).toList();
+  }
+
+  /**
+   * write everything queued, compact the log and close the files
+   * @throws IOException if writing fails
+   */
+  @Override
+  public void close() throws IOException {
+    queue.add(new StopEntry());
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    IOException pending = failure.getAndSet(null);
+    try {
+      // the cache only holds batches which were written, so the snapshot is valid after a
+      // failed write as well
+      compact();
+    } finally {
+      log.close();
+    }
+    if (pending != null) {
+      throw pending;
+    }
+  }
+
+  /**
+   * takes all queued changes at once, so a burst of games ends with a single fsync
+   */
+  private void writeLoop() {
+    List<Entry> batch = new ArrayList<>();
+    boolean running = true;
+    try {
+      while (running) {
+        batch.add(queue.take());
+        queue.drainTo(batch, MAX_BATCH - 1);
+        try {
+          writeBatch(batch);
+        } catch (IOException e) {
+          failure.set(e);
+        }
+        for (Entry entry : batch) {
+          if (entry instanceof FlushEntry flush) {
+            flush.done().countDown();
+          } else if (entry instanceof StopEntry) {
+            running = false;
+          }
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void writeBatch(List<Entry> batch) throws IOException {
+    if (logBroken) {
+      throw new IOException("Statistics log not writable after a failed write");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(batch.size() * 64);
+    for (Entry entry : batch) {
+      if (entry instanceof PlayerEntry player) {
+        buffer = ensureSpace(buffer, player.stats().name().length() * 3 + 64);
+        writePlayer(buffer, player.stats());
+      } else if (entry instanceof QuestionEntry question) {
+        buffer = ensureSpace(buffer, 32);
+        writeQuestion(buffer, question.stats());
+      }
+    }
+    buffer.flip();
+    if (buffer.hasRemaining()) {
+      long committed = log.position();
+      try {
+        while (buffer.hasRemaining()) {
+          log.write(buffer);
+        }
+        log.force(false);
+      } catch (IOException e) {
+        rollBack(committed);
+        throw e;
+      }
+    }
+    for (Entry entry : batch) {
+      if (entry instanceof PlayerEntry player) {
+        apply(player.stats());
+      } else if (entry instanceof QuestionEntry question) {
+        apply(question.stats());
+      }
+    }
+    if (log.size() > compactSize) {
+      compact();
+    }
+  }
+
+  /**
+   * cut off a partly written batch, so later batches do not follow a half record
+   * replayLog would stop at that record and drop everything after it
+   * @param committed end of the last completely written batch
+   */
+  private void rollBack(long committed) {
+    try {
+      log.truncate(committed);
+      log.position(committed);
+    } catch (IOException e) {
+      logBroken = true;
+    }
+  }
+
+  /**
+   * write a snapshot of all totals and continue with an empty log of the next generation
+   * the index is replaced atomically, if this fails half way the old index and log stay valid
+   */
+  private synchronized void compact() throws IOException {
+    long next = generation + 1;
+    FileChannel nextLog = FileChannel.open(logFile(next), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      writeIndex(next);
+    } catch (IOException e) {
+      nextLog.close();
+      throw e;
+    }
+    log.close();
+    log = nextLog;
+    generation = next;
+    deleteOldLogs();
+  }
+
+  /**
+   * write the snapshot to a temporary file and move it over the index
+   * @param next generation of the log belonging to the snapshot
+   */
+  private void writeIndex(long next) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(1024);
+    buffer.putInt(INDEX_MAGIC).putLong(next).putInt(players.size());
+    for (PlayerStats stats : players.values()) {
+      buffer = ensureSpace(buffer, stats.name().length() * 3 + 64);
+      writePlayer(buffer, stats);
+    }
+    buffer = ensureSpace(buffer, 4);
+    buffer.putInt(questions.size());
+    for (QuestionStats stats : questions.values()) {
+      buffer = ensureSpace(buffer, 32);
+      writeQuestion(buffer, stats);
+    }
+    buffer.flip();
+    Path temp = directory.resolve(INDEX_FILE + ".tmp");
+    try (FileChannel index = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (buffer.hasRemaining()) {
+        index.write(buffer);
+      }
+      index.force(true);
+    }
+    Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void readIndex() throws IOException {
+    Path index = directory.resolve(INDEX_FILE);
+    if (!Files.exists(index)) {
+      generation = 0;
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(index));
+    if (buffer.remaining() < 12 || buffer.getInt() != INDEX_MAGIC) {
+      throw new IOException("Invalid statistics index: " + index);
+    }
+    generation = buffer.getLong();
+    int playerCount = buffer.getInt();
+    for (int i = 0; i < playerCount; i++) {
+      buffer.get();
+      apply(readPlayer(buffer));
+    }
+    int questionCount = buffer.getInt();
+    for (int i = 0; i < questionCount; i++) {
+      buffer.get();
+      apply(readQuestion(buffer));
+    }
+  }
+
+  /**
+   * apply all complete records of the log, a record cut off by a crash is dropped
+   */
+  private void replayLog() throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) log.size());
+    while (buffer.hasRemaining() && log.read(buffer, buffer.position()) > 0) {
+      // read the whole log
+    }
+    buffer.flip();
+    int valid = 0;
+    try {
+      while (buffer.hasRemaining()) {
+        byte type = buffer.get();
+        if (type == PLAYER) {
+          apply(readPlayer(buffer));
+        } else if (type == QUESTION) {
+          apply(readQuestion(buffer));
+        } else {
+          break;
+        }
+        valid = buffer.position();
+      }
+    } catch (RuntimeException e) {
+      // incomplete record at the end
+    }
+    log.truncate(valid);
+    log.position(valid);
+  }
+
+  private void deleteOldLogs() throws IOException {
+    for (long old = generation - 1; old >= 0 && Files.deleteIfExists(logFile(old)); old--) {
+      // older generations were deleted before
+    }
+    Files.deleteIfExists(logFile(generation + 1));
+  }
+
+  private Path logFile(long logGeneration) {
+    return directory.resolve("stats-" + logGeneration + ".log");
+  }
+
+  private void apply(PlayerStats stats) {
+    players.merge(stats.name(), stats, PlayerStats::add);
+  }
+
+  private void apply(QuestionStats stats) {
+    questions.merge(stats.questionId(), stats, QuestionStats::add);
+  }
+
+  private static ByteBuffer ensureSpace(ByteBuffer buffer, int bytes) {
+    if (buffer.remaining() >= bytes) {
+      return buffer;
+    }
+    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+        buffer.position() + bytes));
+    buffer.flip();
+    return larger.put(buffer);
+  }
+
+  private static void writePlayer(ByteBuffer buffer, PlayerStats stats) {
+    byte[] name = stats.name().getBytes(StandardCharsets.UTF_8);
+    buffer.put(PLAYER).putInt(name.length).put(name).putInt(stats.gamesPlayed())
+        .putLong(stats.points()).putLong(stats.answers()).putLong(stats.correctAnswers())
+        .putLong(stats.totalReactionNanos());
+  }
+
+  private static PlayerStats readPlayer(ByteBuffer buffer) {
+    byte[] name = new byte[buffer.getInt()];
+    buffer.get(name);
+    return new PlayerStats(new String(name, StandardCharsets.UTF_8), buffer.getInt(),
+        buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+  }
+
+  private static void writeQuestion(ByteBuffer buffer, QuestionStats stats) {
+    buffer.put(QUESTION).putInt(stats.questionId()).putLong(stats.asked())
+        .putLong(stats.correct());
+  }
+
+  private static QuestionStats readQuestion(ByteBuffer buffer) {
+    return new QuestionStats(buffer.getInt(), buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * Something waiting in the write queue
+   */
+  private interface Entry {
+
+  }
+
+  private record PlayerEntry(PlayerStats stats) implements Entry {
+
+  }
+
+  private record QuestionEntry(QuestionStats stats) implements Entry {
+
+  }
+
+  private record FlushEntry(CountDownLatch done) implements Entry {
+
+  }
+
+  private record StopEntry() implements Entry {
+
+  }
+}
@@ -14,7 +14,8 @@ public class UserInterface {
 
   /**
    * Shows an introduction to the game and asks the user, what action he wants to take.
-   * @return q to quit, n to indicate that the user wants to create a new game, or j to join an existing game
+   * @return q to quit, n to indicate that the user wants to create a new game, s for a sharded
+   *     game server or j to join an existing game
    */
   public char showWelcomeScreen() {
     System.out.println("Welcome to the guessing game");
@@ -23,10 +24,10 @@ public class UserInterface {
     System.out.println();
     String input;
     ArrayList<String> options = new ArrayList<>(
-        Arrays.asList("n", "new", "j", "join", "q", "quit"));
+        Arrays.asList("n", "new", "s", "shards", "j", "join", "q", "quit"));
     do {
-      System.out.println(
-          "To start a new game server, enter 'n(ew)', to join a existing game type 'j(oin)', to exit type 'q(uit)'");
+      System.out.println("To start a new game server, enter 'n(ew)', for a server hosting many "
+          + "rooms 's(hards)', to join a existing game type 'j(oin)', to exit type 'q(uit)'");
       input = scanner.nextLine();
     } while (!options.contains(input));
     return input.charAt(0);
@@ -37,17 +38,43 @@ public class UserInterface {
    * @return char with the chosen answer
    */
   public char getAnswer() {
-    String input;
+    char answer;
+    do {
+      showAnswerPrompt();
+      answer = parseAnswer(scanner.nextLine());
+    } while (answer == 0);
+    return answer;
+  }
+
+  /**
+   * asks the user to choose an answer, without waiting for the input
+   */
+  public void showAnswerPrompt() {
+    System.out.println("Which answer is correct? A, B or C?");
+  }
+
+  /**
+   * Checks if the input is a, b or c. Input is handled case insensitive
+   * @param input line entered by the user
+   * @return the chosen answer in upper case or 0 if the input is no valid answer
+   */
+  public char parseAnswer(String input) {
     ArrayList<String> options = new ArrayList<>(
         Arrays.asList("A", "B", "C", "a", "b", "c"));
-    do {
-      System.out.println(
-          "Which answer is correct? A, B or C?");
-      input = scanner.nextLine();
-    } while (!options.contains(input));
+    if (!options.contains(input)) {
+      return 0;
+    }
     return input.toUpperCase(Locale.ROOT).charAt(0);
   }
 
+  /**
+   * waits for the next line entered by the user
+   * @return the line without any validation
+   */
+  public String readLine() {
+    return scanner.nextLine();
+  }
+
   /**
    * prints an error message to the output
    * @param message
@@ -77,7 +104,7 @@ public class UserInterface {
     int players;
     do {
       System.out.println("Please enter the number of players (2-4): ");
-      players = scanner.nextInt();
+      players = readInt();
     } while (players < 2 || players > 4);
     return players;
   }
@@ -103,6 +130,43 @@ public class UserInterface {
     return ip;
   }
 
+  /**
+   * prompts the user for the room he wants to join on a sharded server
+   * @return the room code or an empty string to join a single game server
+   */
+  public String getRoomCode() {
+    System.out.println("Please enter the room code (leave empty for a single game): ");
+    return scanner.nextLine().strip();
+  }
+
+  /**
+   * prompts for an integer between 1 and the number of available processors for the shards
+   * @return number of shards
+   */
+  public int getNumberOfShards() {
+    int maxShards = Runtime.getRuntime().availableProcessors();
+    int shards;
+    do {
+      System.out.printf("How many shards shall be started? (1-%d)%n", maxShards);
+      shards = readInt();
+    } while (shards < 1 || shards > maxShards);
+    return shards;
+  }
+
+  /**
+   * asks whether the shards shall run in own processes
+   * @return true to start a worker JVM per shard, false to run them as threads
+   */
+  public boolean useWorkerProcesses() {
+    String input;
+    ArrayList<String> options = new ArrayList<>(Arrays.asList("y", "yes", "n", "no"));
+    do {
+      System.out.println("Run each shard in its own process? (y/n)");
+      input = scanner.nextLine();
+    } while (!options.contains(input));
+    return input.charAt(0) == 'y';
+  }
+
   /**
    * prompts for an integer between 1 and the number of available questions
    * @param maxQuestions
@@ -112,8 +176,18 @@ public class UserInterface {
     int questions;
     do {
       System.out.printf("How many questions shall be asked? (max. %d)%n", maxQuestions);
-      questions = scanner.nextInt();
+      questions = readInt();
     } while (questions < 1 || questions > maxQuestions);
     return questions;
   }
+
+  /**
+   * read a number and the rest of its line, so the next nextLine does not return an empty line
+   * @return the number entered
+   */
+  private int readInt() {
+    int value = scanner.nextInt();
+    scanner.nextLine();
+    return value;
+  }
 }
@@ -12,17 +12,15 @@ public class Validator {
   }
 
   /**
-   * Validate an IPv4 address
+   * Validate an IPv4 or IPv6 address
    * @param ip the ip to validate
-   * @return true for valid ipv4 or empty string, false for invalid ip
+   * @return true for a valid ip or empty string, false for invalid ip
    */
   public static boolean isValidIP(String ip) {
     //default value, will be interpreted as localhost
     if (ip.length() == 0) {
       return true;
     }
-    //IP regex from https://mkyong.com/regular-expressions/how-to-validate-ip-address-with-regular-expression/
-    String ipPattern = "^(([0-9]|[1-9][0-9]|1[0-9][0-9]|2[0-4][0-9]|25[0-5])(\\.(?!$)|$)){4}$";
-    return ip.matches(ipPattern);
+    return IpAddress.parse(ip) != null;
   }
-}
+}
\ No newline at end of file
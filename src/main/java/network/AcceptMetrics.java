@@ -0,0 +1,94 @@
+package network;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of accepted connections, safe to update from several threads
+ */
+public class AcceptMetrics {
+
+  private final LongAdder accepted = new LongAdder();
+  private final LongAdder rateLimited = new LongAdder();
+  private final LongAdder denied = new LongAdder();
+  private final LongAdder handshakeTimeouts = new LongAdder();
+  private final LongAdder acceptFailures = new LongAdder();
+  private final Latency handoff = new Latency();
+  private final Latency join = new Latency();
+
+  /**
+   * a connection passed all checks and was handed over
+   * @param handoffNanos time between accept returning and the hand over
+   */
+  void accepted(long handoffNanos) {
+    accepted.increment();
+    handoff.add(handoffNanos);
+  }
+
+  void rateLimited() {
+    rateLimited.increment();
+  }
+
+  void denied() {
+    denied.increment();
+  }
+
+  void handshakeTimeout() {
+    handshakeTimeouts.increment();
+  }
+
+  void acceptFailed() {
+    acceptFailures.increment();
+  }
+
+  /**
+   * a player completed the handshake
+   * @param joinNanos time between accept and the received name
+   */
+  void joined(long joinNanos) {
+    join.add(joinNanos);
+  }
+
+  public long getAccepted() {
+    return accepted.sum();
+  }
+
+  public long getRateLimited() {
+    return rateLimited.sum();
+  }
+
+  public long getDenied() {
+    return denied.sum();
+  }
+
+  public long getHandshakeTimeouts() {
+    return handshakeTimeouts.sum();
+  }
+
+  public long getAcceptFailures() {
+    return acceptFailures.sum();
+  }
+
+  /**
+   * @return average time between accept and a completed handshake
+   */
+  public long getAverageJoinNanos() {
+    return join.getAverageNanos();
+  }
+
+  /**
+   * @return longest time between accept and a completed handshake
+   */
+  public long getMaxJoinNanos() {
+    return join.getMaxNanos();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%d accepted (handoff avg %.3f ms, max %.3f ms), %d rate limited, %d denied, "
+            + "%d handshake timeouts, %d failed accepts, join avg %.2f ms, max %.2f ms",
+        getAccepted(), handoff.getAverageNanos() / 1e6, handoff.getMaxNanos() / 1e6,
+        getRateLimited(), getDenied(), getHandshakeTimeouts(), getAcceptFailures(),
+        join.getAverageNanos() / 1e6, join.getMaxNanos() / 1e6);
+  }
+}
@@ -0,0 +1,233 @@
+package network;
+
+import core.Commands;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Dedicated accept loop for join storms
+ * The accept thread only applies cheap checks (token bucket per source address, admission
+ * policy) and hands everything else, like creating stream wrappers, to an executor
+ */
+public class Acceptor implements Runnable, Closeable {
+
+  public static final int DEFAULT_BACKLOG = 50;
+  // system properties to configure the rate limit per source address
+  public static final String RATE_PROPERTY = "quiz.ratePerIp";
+  public static final String BURST_PROPERTY = "quiz.burstPerIp";
+  // generous, at a venue all players may join from one NAT address within a few seconds
+  public static final double DEFAULT_RATE = 50;
+  public static final int DEFAULT_BURST = 200;
+  private static final byte[] RATE_LIMITED_REPLY = ("Too many connections from your address, "
+      + "please try again later\n" + Commands.END_GAME + "\n").getBytes(StandardCharsets.UTF_8);
+  // forget the buckets of quiet addresses once this many are tracked
+  private static final int MAX_TRACKED_ADDRESSES = 10_000;
+  // pause after accept failed because the process ran out of file descriptors
+  private static final long OUT_OF_FILES_BACKOFF_MILLIS = 100;
+  private final ServerSocketChannel serverChannel;
+  private final Executor executor;
+  private final Handoff handoff;
+  private final AcceptMetrics metrics = new AcceptMetrics();
+  // only used by the accept thread
+  private final Map<InetAddress, TokenBucket> buckets = new HashMap<>();
+  private volatile AdmissionPolicy admission = new AdmissionPolicy();
+  private double connectionsPerSecond = DEFAULT_RATE;
+  private int burst = DEFAULT_BURST;
+
+  /**
+   * bind a new acceptor
+   * @param port     port to listen on, 0 for any free port
+   * @param backlog  how many connections the OS queues until they are accepted
+   * @param executor runs the handoff of accepted connections
+   * @param handoff  takes over accepted connections
+   * @throws IOException if the socket can not be bound
+   */
+  public Acceptor(int port, int backlog, Executor executor, Handoff handoff) throws IOException {
+    this(bind(port, backlog), executor, handoff);
+  }
+
+  /**
+   * create an acceptor on a bound socket, e.g. when the handoff can only be created later
+   * @param serverChannel bound socket, see bind
+   * @param executor      runs the handoff of accepted connections
+   * @param handoff       takes over accepted connections
+   */
+  public Acceptor(ServerSocketChannel serverChannel, Executor executor, Handoff handoff) {
+    this.executor = executor;
+    this.handoff = handoff;
+    this.serverChannel = serverChannel;
+  }
+
+  /**
+   * @param port    port to listen on, 0 for any free port
+   * @param backlog how many connections the OS queues until they are accepted
+   * @return the bound socket
+   * @throws IOException if the socket can not be bound
+   */
+  public static ServerSocketChannel bind(int port, int backlog) throws IOException {
+    ServerSocketChannel serverChannel = ServerSocketChannel.open();
+    try {
+      serverChannel.bind(new InetSocketAddress(port), backlog);
+    } catch (IOException e) {
+      serverChannel.close();
+      throw e;
+    }
+    return serverChannel;
+  }
+
+  /**
+   * @param admission decides which addresses may connect
+   */
+  public void setAdmissionPolicy(AdmissionPolicy admission) {
+    this.admission = admission;
+  }
+
+  /**
+   * limit how fast a single address may open connections, has to be called before run
+   * @param perSecond connections per second in the long run
+   * @param burst     connections allowed at once
+   */
+  public void setRateLimit(double perSecond, int burst) {
+    this.connectionsPerSecond = perSecond;
+    this.burst = burst;
+  }
+
+  /**
+   * accept connections until the acceptor is closed
+   */
+  @Override
+  public void run() {
+    while (serverChannel.isOpen()) {
+      try {
+        acceptNext();
+      } catch (ClosedChannelException e) {
+        // closed on purpose
+        return;
+      } catch (IOException e) {
+        //a single failing accept is not worth stopping the game for, e.g. an aborted connection
+        metrics.acceptFailed();
+        if (isOutOfFiles(e)) {
+          //retrying at once would spin until some connections are closed
+          backOff();
+        }
+      }
+    }
+  }
+
+  /**
+   * accept one connection and hand it over if it passes the checks
+   * @throws IOException if accepting fails
+   */
+  private void acceptNext() throws IOException {
+    SocketChannel client = serverChannel.accept();
+    long accepted = System.nanoTime();
+    InetAddress address = ((InetSocketAddress) client.getRemoteAddress()).getAddress();
+    if (!bucketFor(address, accepted).tryAcquire(accepted)) {
+      metrics.rateLimited();
+      rejectRateLimited(client);
+      return;
+    }
+    if (!admission.admit(address)) {
+      metrics.denied();
+      close(client);
+      return;
+    }
+    executor.execute(() -> handoff.accepted(client, address, accepted));
+    metrics.accepted(System.nanoTime() - accepted);
+  }
+
+  /**
+   * tell a rate limited player why it is disconnected and close the connection
+   * @param client the new connection
+   */
+  private static void rejectRateLimited(SocketChannel client) {
+    try {
+      //a new connection has an empty send buffer, so this short reply does not block
+      client.write(ByteBuffer.wrap(RATE_LIMITED_REPLY));
+    } catch (IOException e) {
+      // the player is gone already
+    } finally {
+      close(client);
+    }
+  }
+
+  private static boolean isOutOfFiles(IOException e) {
+    return e.getMessage() != null && e.getMessage().contains("Too many open files");
+  }
+
+  private void backOff() {
+    try {
+      Thread.sleep(OUT_OF_FILES_BACKOFF_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      close();
+    }
+  }
+
+  /**
+   * a connection handed over before was closed
+   * @param address remote address of the connection
+   */
+  public void release(InetAddress address) {
+    admission.release(address);
+  }
+
+  /**
+   * stop accepting, connections already handed over stay open
+   */
+  @Override
+  public void close() {
+    try {
+      serverChannel.close();
+    } catch (IOException e) {
+      // already closed
+    }
+  }
+
+  public int getPort() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  public AcceptMetrics getMetrics() {
+    return metrics;
+  }
+
+  private TokenBucket bucketFor(InetAddress address, long now) {
+    if (buckets.size() >= MAX_TRACKED_ADDRESSES) {
+      buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+    return buckets.computeIfAbsent(address,
+        a -> new TokenBucket(connectionsPerSecond, burst, now));
+  }
+
+  private static void close(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // already closed
+    }
+  }
+
+  /**
+   * Takes over a connection which passed all checks of the acceptor
+   */
+  public interface Handoff {
+
+    /**
+     * @param client   the connection
+     * @param address  remote address of the connection
+     * @param accepted nano time the connection was accepted
+     */
+    void accepted(SocketChannel client, InetAddress address, long accepted);
+  }
+}
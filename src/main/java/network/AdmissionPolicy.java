@@ -0,0 +1,105 @@
+package network;
+
+import core.AddressTrie;
+import core.IpAddress;
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a new connection is accepted before any ClientHandler is created
+ * Addresses are checked against allow and deny ranges, the most specific range wins. If any
+ * allow range is configured, addresses outside of all ranges are rejected (e.g. a venue network)
+ * Additionally the number of open connections per address can be limited
+ */
+public class AdmissionPolicy {
+
+  // system properties to configure the policy, ranges are comma separated
+  public static final String ALLOW_PROPERTY = "quiz.allow";
+  public static final String DENY_PROPERTY = "quiz.deny";
+  public static final String MAX_PER_IP_PROPERTY = "quiz.maxPerIp";
+  private final AddressTrie<Boolean> rules = new AddressTrie<>();
+  private final Map<InetAddress, Integer> connections = new ConcurrentHashMap<>();
+  private boolean allowListed = false;
+  private int maxPerAddress = Integer.MAX_VALUE;
+
+  /**
+   * create a policy from the system properties, without properties everything is accepted
+   * @return the configured policy
+   */
+  public static AdmissionPolicy fromSystemProperties() {
+    AdmissionPolicy policy = new AdmissionPolicy();
+    for (String range : System.getProperty(ALLOW_PROPERTY, "").split(",")) {
+      if (!range.isBlank()) {
+        policy.allow(range.strip());
+      }
+    }
+    for (String range : System.getProperty(DENY_PROPERTY, "").split(",")) {
+      if (!range.isBlank()) {
+        policy.deny(range.strip());
+      }
+    }
+    String maxPerIp = System.getProperty(MAX_PER_IP_PROPERTY);
+    if (maxPerIp != null) {
+      policy.setMaxPerAddress(Integer.parseInt(maxPerIp));
+    }
+    return policy;
+  }
+
+  /**
+   * accept connections from a range
+   * @param range CIDR range or single address
+   */
+  public void allow(String range) {
+    rules.put(parse(range), true);
+    allowListed = true;
+  }
+
+  /**
+   * reject connections from a range
+   * @param range CIDR range or single address
+   */
+  public void deny(String range) {
+    rules.put(parse(range), false);
+  }
+
+  /**
+   * @param maxPerAddress how many connections a single address may have open at the same time
+   */
+  public void setMaxPerAddress(int maxPerAddress) {
+    this.maxPerAddress = maxPerAddress;
+  }
+
+  /**
+   * check a new connection, if it is admitted it counts until release is called
+   * @param address remote address of the connection
+   * @return true if the connection may be used
+   */
+  public boolean admit(InetAddress address) {
+    Boolean rule = rules.longestMatch(address.getAddress());
+    if (rule == null ? allowListed : !rule) {
+      return false;
+    }
+    if (connections.merge(address, 1, Integer::sum) > maxPerAddress) {
+      release(address);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * a connection admitted before was closed
+   * @param address remote address of the connection
+   */
+  public void release(InetAddress address) {
+    connections.computeIfPresent(address, (a, open) -> open <= 1 ? null : open - 1);
+  }
+
+  private static IpAddress.Range parse(String range) {
+    IpAddress.Range parsed = IpAddress.parseRange(range);
+    if (parsed == null) {
+      throw new IllegalArgumentException("Invalid address range: " + range);
+    }
+    return parsed;
+  }
+}
@@ -8,6 +8,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Game client Connects to a server via sockets and handles interaction with a player
@@ -15,10 +18,13 @@ import java.net.Socket;
  */
 public class Client extends Player implements Runnable {
 
+  private static final int EVENT_QUEUE_SIZE = 64;
+
   private final UserInterface ui;
   private final Socket socket;
   private final BufferedReader reader;
   private final PrintWriter writer;
+  private final BlockingQueue<Event> events = new ArrayBlockingQueue<>(EVENT_QUEUE_SIZE);
 
   /**
    * Creates a new Client and connects to the server
@@ -29,32 +35,74 @@ public class Client extends Player implements Runnable {
   public Client(UserInterface ui, int port) throws IOException {
     this.ui = ui;
     String ip = ui.getServerIP();
+    String roomCode = ui.getRoomCode();
     setName(ui.getName());
     socket = new Socket(ip, port);
     writer = new PrintWriter(socket.getOutputStream(), true);
+    //a sharded server needs to know the room first, a single game server ignores it
+    if (!roomCode.isEmpty()) {
+      writer.println(Commands.JOIN_ROOM + ":" + roomCode);
+    }
     writer.println(Commands.SET_NAME + ":" + getName());
     reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
   }
 
+  /**
+   * Runs the game: a socket reader thread and an input thread feed a bounded event queue,
+   * which is processed here. Answers are sent as soon as they are entered and the server
+   * stays responsive (pings, new rounds) while the player is thinking
+   */
   public void run() {
+    Thread socketReader = new Thread(this::readServer, "socket-reader");
+    socketReader.setDaemon(true);
+    socketReader.start();
+    //System.in can't be interrupted, so this thread is left behind when the game ends
+    Thread input = new Thread(this::readInput, "input");
+    input.setDaemon(true);
+    input.start();
+    // when the open GET_ANSWER prompt was received, -1 if no answer is expected
+    long promptedAt = -1;
     boolean running = true;
     try {
       while (running) {
-        String serverMessage = reader.readLine();
-        switch (serverMessage) {
-          case Commands.GET_ANSWER -> {
-            char input = ui.getAnswer();
-            writer.println(String.format("%s:%s", Commands.ANSWER, input));
+        Event event = events.take();
+        switch (event.source()) {
+          case USER -> {
+            //input without an open prompt or typed before the current one is stale
+            if (promptedAt < 0 || event.nanos() < promptedAt) {
+              continue;
+            }
+            char answer = ui.parseAnswer(event.text());
+            if (answer == 0) {
+              ui.showAnswerPrompt();
+            } else {
+              writer.println(String.format("%s:%s:%d", Commands.ANSWER, answer,
+                  event.nanos() - promptedAt));
+              promptedAt = -1;
+            }
           }
-          case Commands.END_GAME -> {
+          case SERVER -> {
+            switch (event.text()) {
+              case Commands.GET_ANSWER -> {
+                //a new prompt replaces one which was never answered
+                promptedAt = event.nanos();
+                ui.showAnswerPrompt();
+              }
+              case Commands.END_GAME -> {
+                running = false;
+                writer.println(Commands.END_GAME);
+              }
+              default -> ui.showMessage(event.text());
+            }
+          }
+          case CLOSED -> {
+            ui.showError("Connection failed");
             running = false;
-            writer.println(Commands.END_GAME);
           }
-          default -> ui.showMessage(serverMessage);
         }
       }
-    } catch (IOException e) {
-      ui.showError("Connection failed");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } finally {
       try {
         reader.close();
@@ -65,4 +113,59 @@ public class Client extends Player implements Runnable {
       }
     }
   }
+
+  /**
+   * read messages from the server and queue them, pings are answered right away
+   */
+  private void readServer() {
+    try {
+      String serverMessage;
+      while ((serverMessage = reader.readLine()) != null) {
+        if (serverMessage.startsWith(Commands.PING + ":")) {
+          //echo the time stamp of the server, so it can measure the round trip
+          writer.println(Commands.PONG + serverMessage.substring(Commands.PING.length()));
+        } else {
+          events.put(new Event(Source.SERVER, serverMessage, System.nanoTime()));
+        }
+      }
+    } catch (IOException e) {
+      //handled like a closed connection
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    try {
+      //waits for space like the server messages, a dropped CLOSED would leave the client waiting
+      events.put(new Event(Source.CLOSED, null, System.nanoTime()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * read lines entered by the user and queue them, if the queue is full the input is dropped
+   */
+  private void readInput() {
+    try {
+      while (true) {
+        String line = ui.readLine();
+        events.offer(new Event(Source.USER, line, System.nanoTime()));
+      }
+    } catch (NoSuchElementException e) {
+      //input closed, nothing more to read
+    }
+  }
+
+  private enum Source {
+    SERVER,
+    USER,
+    CLOSED
+  }
+
+  /**
+   * Something that happened on the server connection or the user input
+   */
+  private record Event(Source source, String text, long nanos) {
+
+  }
 }
@@ -2,10 +2,10 @@ package network;
 
 import core.Commands;
 import core.Player;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.net.Socket;
 
 /**
@@ -13,10 +13,24 @@ import java.net.Socket;
  */
 public class ClientHandler extends Player implements Runnable {
 
-  private final BufferedReader reader;
+  // lines a new client may send before its name, so the handshake can't be kept open forever
+  private static final int MAX_LINES_BEFORE_NAME = 4;
+  private final CommandDecoder decoder;
+  private final ClientMessage message = new ClientMessage();
   private final PrintWriter writer;
   private final Server server;
-  private boolean running = true;
+  private final RttEstimator rtt = new RttEstimator();
+  // null if the handler runs on streams without a connection
+  private final Socket socket;
+  private volatile boolean running = true;
+  // the round this player answered last and the answer given, written before the latch counts down
+  private volatile int answeredRound = -1;
+  private char answer;
+  private long reactionNanos;
+  // statistics of the current game, only used by the game thread
+  private int answersGiven = 0;
+  private int correctAnswers = 0;
+  private long totalReactionNanos = 0;
 
   /**
    * create a new client handler
@@ -25,17 +39,116 @@ public class ClientHandler extends Player implements Runnable {
    * @throws IOException if establishing the connections fails
    */
   public ClientHandler(Socket client, Server server) throws IOException {
-    reader = new BufferedReader(new InputStreamReader(client.getInputStream()));
-    writer = new PrintWriter(client.getOutputStream(), true);
+    this(client, new InputStreamReader(client.getInputStream()),
+        new PrintWriter(client.getOutputStream(), true), server);
+  }
+
+  /**
+   * create a client handler on existing streams, used to replay games without sockets
+   * @param reader input from the client, does not need to be buffered
+   * @param writer output to the client
+   * @param server parent server class running the game
+   */
+  ClientHandler(Reader reader, PrintWriter writer, Server server) {
+    this(null, reader, writer, server);
+  }
+
+  private ClientHandler(Socket socket, Reader reader, PrintWriter writer, Server server) {
+    this.socket = socket;
+    this.decoder = new CommandDecoder(reader);
+    this.writer = writer;
     this.server = server;
   }
 
   /**
-   * end the handler
+   * end the handler, the client is told to leave and the handler stops once it has closed
    */
   public void end() {
     sendMessage(Commands.END_GAME);
     this.running = false;
+    if (socket != null) {
+      try {
+        socket.shutdownOutput();
+      } catch (IOException e) {
+        // already closed
+      }
+    }
+  }
+
+  /**
+   * close the connection at once, a handler waiting for input stops
+   */
+  public void close() {
+    this.running = false;
+    try {
+      if (socket != null) {
+        socket.close();
+      } else {
+        decoder.close();
+      }
+    } catch (IOException e) {
+      // already closed
+    }
+  }
+
+  /**
+   * send a ping carrying the current time, the client echoes it in a pong
+   */
+  public void ping() {
+    sendMessage(Commands.PING + ":" + System.nanoTime());
+  }
+
+  public RttEstimator getRtt() {
+    return rtt;
+  }
+
+  /**
+   * store the answer of this player for a round, only the first answer per round counts
+   * @param round         number of the round
+   * @param answer        the answer given
+   * @param reactionNanos compensated reaction time of the player
+   * @return false if the player already answered in this round
+   */
+  boolean setAnswer(int round, char answer, long reactionNanos) {
+    if (answeredRound == round) {
+      return false;
+    }
+    this.answer = answer;
+    this.reactionNanos = reactionNanos;
+    answeredRound = round;
+    return true;
+  }
+
+  /**
+   * count the answer of the last round for the statistics of this game
+   * @param correct whether the answer was correct
+   */
+  void countAnswer(boolean correct) {
+    answersGiven++;
+    totalReactionNanos += reactionNanos;
+    if (correct) {
+      correctAnswers++;
+    }
+  }
+
+  public int getAnswersGiven() {
+    return answersGiven;
+  }
+
+  public int getCorrectAnswers() {
+    return correctAnswers;
+  }
+
+  public long getTotalReactionNanos() {
+    return totalReactionNanos;
+  }
+
+  public char getAnswer() {
+    return answer;
+  }
+
+  public long getReactionNanos() {
+    return reactionNanos;
   }
 
   /**
@@ -44,21 +157,57 @@ public class ClientHandler extends Player implements Runnable {
   @Override
   public void run() {
     try {
-      while (running) {
-        String input = reader.readLine();
-        server.handleClientInput(input, this);
+      while (running && handleNext()) {
+        // handleNext does the work
       }
     } catch (IOException e) {
-      server.getUi().showError(e.getMessage());
+      if (running) {
+        server.getUi().showError(e.getMessage());
+      }
     } finally {
       try {
-        reader.close();
+        decoder.close();
       } catch (IOException e) {
         // already closed
       }
     }
   }
 
+  /**
+   * wait for the name of a new client, unknown lines before it are skipped
+   * e.g. a client which was given a room code sends JoinRoom first, a single game ignores it
+   * @return false if the client sent another command, too many lines or closed the connection
+   * @throws IOException if reading fails, e.g. because of a timeout
+   */
+  boolean readName() throws IOException {
+    for (int i = 0; i < MAX_LINES_BEFORE_NAME; i++) {
+      if (!decoder.next(message)) {
+        return false;
+      }
+      if (message.getType() == ClientMessage.Type.SET_NAME) {
+        setName(message.getName());
+        return true;
+      }
+      if (message.getType() != ClientMessage.Type.UNKNOWN) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * wait for the next message from the client and let the server handle it
+   * @return false if the connection was closed by the client
+   * @throws IOException if reading fails
+   */
+  boolean handleNext() throws IOException {
+    if (!decoder.next(message)) {
+      return false;
+    }
+    server.handleMessage(message, this, System.nanoTime());
+    return true;
+  }
+
   /**
    * Send the given message over the socket to the client
    * @param message string to send
@@ -0,0 +1,72 @@
+package network;
+
+/**
+ * A decoded message from a client
+ * Each connection reuses one instance for all its messages, so reading commands does not
+ * allocate, only the name of SET_NAME is copied into a new string
+ */
+public class ClientMessage {
+
+  private Type type = Type.UNKNOWN;
+  private char answer;
+  private long value = -1;
+  private String name;
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * @return the answer chosen, only set for ANSWER
+   */
+  public char getAnswer() {
+    return answer;
+  }
+
+  /**
+   * @return reaction time measured by the client for ANSWER (-1 if missing),
+   *     the echoed time stamp for PONG
+   */
+  public long getValue() {
+    return value;
+  }
+
+  /**
+   * @return the name of the player, only set for SET_NAME
+   */
+  public String getName() {
+    return name;
+  }
+
+  void setUnknown() {
+    type = Type.UNKNOWN;
+  }
+
+  void setEndGame() {
+    type = Type.END_GAME;
+  }
+
+  void setName(String name) {
+    type = Type.SET_NAME;
+    this.name = name;
+  }
+
+  void setAnswer(char answer, long clientElapsed) {
+    type = Type.ANSWER;
+    this.answer = answer;
+    this.value = clientElapsed;
+  }
+
+  void setPong(long timestamp) {
+    type = Type.PONG;
+    this.value = timestamp;
+  }
+
+  public enum Type {
+    SET_NAME,
+    ANSWER,
+    PONG,
+    END_GAME,
+    UNKNOWN
+  }
+}
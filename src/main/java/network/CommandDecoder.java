@@ -0,0 +1,182 @@
+package network;
+
+import core.Commands;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads client commands line by line directly from a char buffer into a reusable ClientMessage
+ * Unlike readLine and split this creates no strings and arrays per message, and commands are
+ * recognised by comparing chars instead of hashing the command string
+ */
+public class CommandDecoder implements Closeable {
+
+  private static final int BUFFER_SIZE = 1024;
+  private static final char SEPARATOR = ':';
+  private static final char[] SET_NAME = Commands.SET_NAME.toCharArray();
+  private static final char[] ANSWER = Commands.ANSWER.toCharArray();
+  private static final char[] PONG = Commands.PONG.toCharArray();
+  private static final char[] END_GAME = Commands.END_GAME.toCharArray();
+  private final Reader reader;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  // unread chars are buffer[start] to buffer[end - 1]
+  private int start = 0;
+  private int end = 0;
+  // set after a line did not fit into the buffer, the rest of it is dropped
+  private boolean skipLine = false;
+
+  /**
+   * create a decoder, the reader should not be buffered, the decoder has its own buffer
+   * @param reader input from the client
+   */
+  public CommandDecoder(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * wait for the next line and decode it
+   * @param message receives the decoded command
+   * @return false if the input has ended
+   * @throws IOException if reading fails
+   */
+  public boolean next(ClientMessage message) throws IOException {
+    while (true) {
+      int newline = indexOfNewline();
+      if (newline >= 0) {
+        int lineStart = start;
+        start = newline + 1;
+        if (skipLine) {
+          skipLine = false;
+          continue;
+        }
+        int lineEnd = newline > lineStart && buffer[newline - 1] == '\r' ? newline - 1 : newline;
+        decode(buffer, lineStart, lineEnd, message);
+        return true;
+      }
+      compact();
+      if (end == buffer.length) {
+        //line too long for any valid command, report it once and drop the rest
+        start = 0;
+        end = 0;
+        if (!skipLine) {
+          skipLine = true;
+          message.setUnknown();
+          return true;
+        }
+      }
+      int read = reader.read(buffer, end, buffer.length - end);
+      if (read == -1) {
+        if (start < end && !skipLine) {
+          decode(buffer, start, end, message);
+          start = end;
+          return true;
+        }
+        return false;
+      }
+      end += read;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * decode a single line, used if the input is already available as a string
+   * @param line    the line without the line break
+   * @param message receives the decoded command
+   */
+  public static void decode(String line, ClientMessage message) {
+    char[] chars = line.toCharArray();
+    decode(chars, 0, chars.length, message);
+  }
+
+  private int indexOfNewline() {
+    for (int i = start; i < end; i++) {
+      if (buffer[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * move the unread chars to the front of the buffer
+   */
+  private void compact() {
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, end - start);
+      end -= start;
+      start = 0;
+    }
+  }
+
+  /**
+   * decode the command in chars[from] to chars[to - 1]
+   */
+  private static void decode(char[] chars, int from, int to, ClientMessage message) {
+    int separator = from;
+    while (separator < to && chars[separator] != SEPARATOR) {
+      separator++;
+    }
+    int argument = separator + 1;
+    if (matches(chars, from, separator, ANSWER)) {
+      if (argument >= to) {
+        message.setUnknown();
+        return;
+      }
+      long elapsed = -1;
+      if (argument + 1 < to && chars[argument + 1] == SEPARATOR) {
+        elapsed = parseLong(chars, argument + 2, to);
+      }
+      message.setAnswer(chars[argument], elapsed);
+    } else if (matches(chars, from, separator, PONG)) {
+      // the echoed System.nanoTime of the server, which may be negative
+      boolean negative = argument < to && chars[argument] == '-';
+      long timestamp = parseLong(chars, negative ? argument + 1 : argument, to);
+      if (timestamp < 0) {
+        message.setUnknown();
+      } else {
+        message.setPong(negative ? -timestamp : timestamp);
+      }
+    } else if (matches(chars, from, separator, SET_NAME) && argument < to) {
+      message.setName(new String(chars, argument, to - argument));
+    } else if (matches(chars, from, separator, END_GAME)) {
+      message.setEndGame();
+    } else {
+      message.setUnknown();
+    }
+  }
+
+  private static boolean matches(char[] chars, int from, int to, char[] command) {
+    if (to - from != command.length) {
+      return false;
+    }
+    for (int i = 0; i < command.length; i++) {
+      if (chars[from + i] != command[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the non negative number in chars[from] to chars[to - 1], -1 if it is no number
+   */
+  private static long parseLong(char[] chars, int from, int to) {
+    if (from >= to || to - from > 19) {
+      return -1;
+    }
+    long value = 0;
+    for (int i = from; i < to; i++) {
+      char c = chars[i];
+      if (c < '0' || c > '9' || value > (Long.MAX_VALUE - (c - '0')) / 10) {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
@@ -0,0 +1,20 @@
+package network;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Something hosting games which can be shut down without dropping the games in progress
+ */
+public interface Drainable {
+
+  /**
+   * stop accepting new games, let the running ones finish and stop all threads
+   * games which have not started yet are called off, games still running after the timeout
+   * are cancelled
+   * @param timeout how long to wait for running games
+   * @param unit    unit of the timeout
+   * @return true if no running game had to be cancelled
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean drain(long timeout, TimeUnit unit) throws InterruptedException;
+}
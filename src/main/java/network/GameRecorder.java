@@ -0,0 +1,137 @@
+package network;
+
+import core.Question;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records a game as a compact binary event log, which can be played back with Replay
+ * Every event starts with a one byte type, strings are stored as length prefixed UTF-8
+ * Events are collected in a buffer and written to the file when it is full or on close
+ */
+public class GameRecorder implements Closeable {
+
+  static final int MAGIC = 0x51554952;
+  static final byte VERSION = 2;
+  static final byte CONNECT = 1;
+  static final byte QUESTION = 2;
+  static final byte FRAME = 3;
+  static final byte ANSWER = 4;
+  static final byte SCORE = 5;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  /**
+   * create a new recording, an existing file is overwritten
+   * @param file where to write the log to
+   * @throws IOException if the file can not be opened
+   */
+  public GameRecorder(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    buffer.putInt(MAGIC).put(VERSION);
+  }
+
+  /**
+   * a player joined the game
+   * @param player index of the player
+   * @param name   name of the player
+   * @throws IOException if writing the log fails
+   */
+  public synchronized void connect(int player, String name) throws IOException {
+    ensureSpace(5);
+    buffer.put(CONNECT).putInt(player);
+    putString(name);
+  }
+
+  /**
+   * a new round started
+   * @param question   the question asked
+   * @param roundStart nano time the players were asked for their answers
+   * @throws IOException if writing the log fails
+   */
+  public synchronized void question(Question question, long roundStart) throws IOException {
+    ensureSpace(10);
+    buffer.put(QUESTION).putLong(roundStart).put((byte) question.getCorrectAnswer());
+    putString(question.getQuestion());
+    putString(question.getAnswerA());
+    putString(question.getAnswerB());
+    putString(question.getAnswerC());
+  }
+
+  /**
+   * a message was sent to all players
+   * @param message the message sent
+   * @throws IOException if writing the log fails
+   */
+  public synchronized void frame(String message) throws IOException {
+    ensureSpace(1);
+    buffer.put(FRAME);
+    putString(message);
+  }
+
+  /**
+   * an answer arrived
+   * @param player      index of the player
+   * @param arrivalNano nano time the answer arrived
+   * @param rttNanos    smoothed round trip time of the player at that moment
+   * @param answer      the answer given
+   * @param clientElapsed reaction time measured by the client, -1 if missing
+   * @throws IOException if writing the log fails
+   */
+  public synchronized void answer(int player, long arrivalNano, long rttNanos, char answer,
+      long clientElapsed) throws IOException {
+    ensureSpace(31);
+    buffer.put(ANSWER).putInt(player).putLong(arrivalNano).putLong(rttNanos)
+        .putChar(answer).putLong(clientElapsed);
+  }
+
+  /**
+   * final points of a player
+   * @param player index of the player
+   * @param points points at the end of the game
+   * @throws IOException if writing the log fails
+   */
+  public synchronized void score(int player, int points) throws IOException {
+    ensureSpace(9);
+    buffer.put(SCORE).putInt(player).putInt(points);
+  }
+
+  /**
+   * write the remaining events and close the file
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    flush();
+    channel.close();
+  }
+
+  private void putString(String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    ensureSpace(4 + bytes.length);
+    buffer.putInt(bytes.length).put(bytes);
+  }
+
+  private void ensureSpace(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+    if (buffer.remaining() < bytes) {
+      throw new IOException("Event too large to record: " + bytes + " bytes");
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
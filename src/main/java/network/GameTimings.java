@@ -0,0 +1,46 @@
+package network;
+
+/**
+ * How long the phases of a game took on the server, safe to read while the game is running
+ */
+public class GameTimings {
+
+  private final Latency join = new Latency();
+  private final Latency broadcast = new Latency();
+  private final Latency answers = new Latency();
+  private final Latency leaderboard = new Latency();
+
+  /**
+   * @return time from the start of the server until all players joined
+   */
+  public Latency getJoin() {
+    return join;
+  }
+
+  /**
+   * @return time to send a question with its answers to all players, once per round
+   */
+  public Latency getBroadcast() {
+    return broadcast;
+  }
+
+  /**
+   * @return time from asking for the answers until the last one arrived, once per round
+   */
+  public Latency getAnswers() {
+    return answers;
+  }
+
+  /**
+   * @return time to send the leader board, including the pauses between the ranks
+   */
+  public Latency getLeaderboard() {
+    return leaderboard;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("join %s, broadcast %s, answers %s, leaderboard %s", join, broadcast,
+        answers, leaderboard);
+  }
+}
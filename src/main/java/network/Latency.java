@@ -0,0 +1,43 @@
+package network;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, average and maximum of measured durations, safe to update from several threads
+ */
+public class Latency {
+
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  void add(long nanos) {
+    count.increment();
+    total.add(nanos);
+    max.accumulateAndGet(nanos, Math::max);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  public long getAverageNanos() {
+    long n = count.sum();
+    return n == 0 ? 0 : total.sum() / n;
+  }
+
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("avg %.2f ms, max %.2f ms", getAverageNanos() / 1e6,
+        getMaxNanos() / 1e6);
+  }
+}
@@ -0,0 +1,224 @@
+package network;
+
+import core.Question;
+import core.UserInterface;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plays back a game recorded by GameRecorder without any sockets
+ * Answers are fed into the server with their recorded arrival times and round trips, so the
+ * scoring is deterministic and can be compared with the recorded result
+ */
+public class Replay {
+
+  /**
+   * hide the implicit public constructor
+   */
+  private Replay() {
+  }
+
+  /**
+   * replay a recording and print the result
+   * @param args path to the recording
+   */
+  public static void main(String[] args) {
+    UserInterface ui = new UserInterface();
+    try {
+      Result result = replay(Path.of(args[0]));
+      ui.showMessage(String.format("%d rounds, %d answers in %.2f ms (%.0f answers/s)",
+          result.rounds(), result.answers(), result.elapsedNanos() / 1e6,
+          result.answersPerSecond()));
+      ui.showMessage("Recorded: " + result.recordedScores());
+      ui.showMessage("Replayed: " + result.replayedScores());
+      if (!result.matches()) {
+        ui.showError("Scoring differs from the recording");
+      }
+    } catch (IOException e) {
+      ui.showError("Could not replay: " + e.getMessage());
+    }
+  }
+
+  /**
+   * replay a recorded game at full speed
+   * @param file the recording
+   * @return scores and timing of the replay
+   * @throws IOException if the recording can not be read or is invalid
+   */
+  public static Result replay(Path file) throws IOException {
+    ByteBuffer log = readFile(file);
+    if (log.remaining() < 5 || log.getInt() != GameRecorder.MAGIC
+        || log.get() != GameRecorder.VERSION) {
+      throw new IOException("Not a game recording: " + file);
+    }
+    List<Event> events = new ArrayList<>();
+    int numPlayers = 0;
+    while (log.hasRemaining()) {
+      Event event;
+      try {
+        event = readEvent(log);
+      } catch (BufferUnderflowException e) {
+        // e.g. the server was killed while recording
+        throw new IOException("Truncated recording: " + file);
+      }
+      if (event.type() != GameRecorder.QUESTION && event.type() != GameRecorder.FRAME) {
+        // players connect one after the other, later events only refer to connected players
+        int limit = event.type() == GameRecorder.CONNECT ? numPlayers + 1 : numPlayers;
+        if (event.player() < 0 || event.player() >= limit) {
+          throw new IOException("Invalid player " + event.player() + " in recording: " + file);
+        }
+      }
+      if (event.type() == GameRecorder.CONNECT) {
+        numPlayers = Math.max(numPlayers, event.player() + 1);
+      }
+      events.add(event);
+    }
+
+    Server server = new Server(new QuietUserInterface(), numPlayers, List.of());
+    ClientHandler[] players = new ClientHandler[numPlayers];
+    for (int i = 0; i < numPlayers; i++) {
+      players[i] = new ClientHandler(Reader.nullReader(),
+          new PrintWriter(Writer.nullWriter()), server);
+      server.registerClient(i, players[i]);
+    }
+    Map<String, Integer> recordedScores = new LinkedHashMap<>();
+    ClientMessage message = new ClientMessage();
+    Question current = null;
+    int rounds = 0;
+    int answers = 0;
+    long start = System.nanoTime();
+    for (Event event : events) {
+      switch (event.type()) {
+        case GameRecorder.CONNECT -> players[event.player()].setName(event.text());
+        case GameRecorder.QUESTION -> {
+          if (current != null) {
+            server.finishRound(current);
+          }
+          current = event.question();
+          server.startRound(current, event.time());
+          rounds++;
+        }
+        case GameRecorder.ANSWER -> {
+          players[event.player()].getRtt().reset(event.rtt());
+          message.setAnswer(event.answer(), event.value());
+          server.handleMessage(message, players[event.player()], event.time());
+          answers++;
+        }
+        case GameRecorder.SCORE ->
+            recordedScores.put(players[event.player()].getName(), (int) event.value());
+        default -> {
+          // frames are only kept for inspection
+        }
+      }
+    }
+    if (current != null) {
+      server.finishRound(current);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    Map<String, Integer> replayedScores = new LinkedHashMap<>();
+    for (ClientHandler player : players) {
+      replayedScores.put(player.getName(), player.getPoints());
+    }
+    return new Result(rounds, answers, elapsed, recordedScores, replayedScores);
+  }
+
+  private static ByteBuffer readFile(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+        // read until the buffer is full
+      }
+      return buffer.flip();
+    }
+  }
+
+  private static Event readEvent(ByteBuffer log) throws IOException {
+    byte type = log.get();
+    return switch (type) {
+      case GameRecorder.CONNECT ->
+          new Event(type, log.getInt(), 0, 0, (char) 0, 0, readString(log), null);
+      case GameRecorder.QUESTION -> {
+        long time = log.getLong();
+        char correct = (char) log.get();
+        Question question = new Question(readString(log), readString(log), readString(log),
+            readString(log), correct);
+        yield new Event(type, -1, time, 0, (char) 0, 0, null, question);
+      }
+      case GameRecorder.FRAME ->
+          new Event(type, -1, 0, 0, (char) 0, 0, readString(log), null);
+      case GameRecorder.ANSWER -> new Event(type, log.getInt(), log.getLong(), log.getLong(),
+          log.getChar(), log.getLong(), null, null);
+      case GameRecorder.SCORE ->
+          new Event(type, log.getInt(), 0, 0, (char) 0, log.getInt(), null, null);
+      default -> throw new IOException("Unknown event type " + type);
+    };
+  }
+
+  private static String readString(ByteBuffer log) throws IOException {
+    int length = log.getInt();
+    if (length < 0) {
+      throw new IOException("Invalid string length " + length);
+    }
+    if (length > log.remaining()) {
+      // checked before allocating, a corrupt length could ask for up to 2 GB
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    log.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Outcome of a replay
+   * @param rounds         number of questions played
+   * @param answers        number of answers fed into the server
+   * @param elapsedNanos   time needed for the replay
+   * @param recordedScores points per player as recorded
+   * @param replayedScores points per player as scored by the replay
+   */
+  public record Result(int rounds, int answers, long elapsedNanos,
+                       Map<String, Integer> recordedScores,
+                       Map<String, Integer> replayedScores) {
+
+    public boolean matches() {
+      return recordedScores.equals(replayedScores);
+    }
+
+    public double answersPerSecond() {
+      return answers / (elapsedNanos / 1e9);
+    }
+  }
+
+  /**
+   * A single event of the recording, unused fields are left empty
+   * value holds the reaction time measured by the client for answers and the points for scores
+   */
+  private record Event(byte type, int player, long time, long rtt, char answer, long value,
+                       String text, Question question) {
+
+  }
+
+  /**
+   * Drops all output, the replay would otherwise print every message of the game
+   */
+  private static class QuietUserInterface extends UserInterface {
+
+    @Override
+    public void showMessage(String message) {
+      // replay runs silently
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package network;
+
+import core.Commands;
+import core.UserInterface;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Front acceptor of a sharded game
+ * Reads the JoinRoom line of each player, picks the shard via the hash ring and forwards the
+ * connection including that line over loopback to the shard
+ */
+public class Router implements Runnable, Closeable {
+
+  private static final int BUFFER_SIZE = 4096;
+  private final UserInterface ui;
+  private final Acceptor acceptor;
+  private final ShardRing ring;
+  private final int[] shardPorts;
+  private final ExecutorService pipes = Executors.newCachedThreadPool();
+  private int handshakeTimeoutMillis = Server.DEFAULT_HANDSHAKE_TIMEOUT_MILLIS;
+
+  /**
+   * create a new router
+   * @param ui         helper object for UI output
+   * @param port       public port the players connect to
+   * @param backlog    how many connections the OS queues until they are accepted
+   * @param shardPorts loopback ports of the shards, indexed like the ring
+   * @param admission  decides which players may connect
+   * @throws IOException if the socket can not be created
+   */
+  public Router(UserInterface ui, int port, int backlog, int[] shardPorts,
+      AdmissionPolicy admission) throws IOException {
+    this.ui = ui;
+    this.shardPorts = shardPorts;
+    ring = new ShardRing(shardPorts.length);
+    acceptor = new Acceptor(port, backlog, pipes, this::accepted);
+    acceptor.setAdmissionPolicy(admission);
+  }
+
+  /**
+   * limit how fast a single address may open connections, has to be called before run
+   * @param perSecond connections per second in the long run
+   * @param burst     connections allowed at once
+   */
+  public void setRateLimit(double perSecond, int burst) {
+    acceptor.setRateLimit(perSecond, burst);
+  }
+
+  /**
+   * @param handshakeTimeoutMillis how long a new connection may take to send its room code
+   */
+  public void setHandshakeTimeout(int handshakeTimeoutMillis) {
+    this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+  }
+
+  /**
+   * accept players and route them to their shard
+   */
+  @Override
+  public void run() {
+    acceptor.run();
+    // connections already routed keep their pipes until one side closes
+    pipes.shutdown();
+    ui.showMessage("Router stopped: " + acceptor.getMetrics());
+  }
+
+  /**
+   * stop accepting players, the ones already routed stay connected to their shard
+   */
+  @Override
+  public void close() {
+    acceptor.close();
+  }
+
+  public int getPort() {
+    return acceptor.getPort();
+  }
+
+  /**
+   * route an accepted player, the connection counts for the admission until it is closed
+   */
+  private void accepted(SocketChannel client, InetAddress address, long acceptedNanos) {
+    try {
+      route(client, acceptedNanos);
+    } finally {
+      acceptor.release(address);
+    }
+  }
+
+  /**
+   * wait for the room code of a player and connect it with the responsible shard
+   * @param client        connection of the player
+   * @param acceptedNanos nano time the connection was accepted
+   */
+  private void route(SocketChannel client, long acceptedNanos) {
+    ByteBuffer firstBytes = ByteBuffer.allocate(BUFFER_SIZE);
+    try {
+      String roomCode = readRoomCode(client, firstBytes, acceptedNanos);
+      if (roomCode == null) {
+        client.close();
+        return;
+      }
+      client.socket().setSoTimeout(0);
+      int shard = ring.shardFor(roomCode);
+      SocketChannel shardChannel = SocketChannel.open(
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), shardPorts[shard]));
+      // forward everything read so far, the shard needs the JoinRoom line as well
+      firstBytes.flip();
+      while (firstBytes.hasRemaining()) {
+        shardChannel.write(firstBytes);
+      }
+      pipes.execute(() -> pipe(client, shardChannel));
+      pipe(shardChannel, client);
+    } catch (SocketTimeoutException e) {
+      acceptor.getMetrics().handshakeTimeout();
+      close(client);
+    } catch (IOException e) {
+      ui.showError("Could not route player: " + e.getMessage());
+      close(client);
+    }
+  }
+
+  /**
+   * read until the first line is complete and extract the room code
+   * reads through the socket adaptor, unlike the channel it supports a read timeout
+   * @param client        connection of the player
+   * @param buffer        receives all bytes read, may contain more than the first line
+   * @param acceptedNanos nano time the connection was accepted, the deadline starts there
+   * @return the room code or null if the first line is no JoinRoom command
+   * @throws IOException if reading fails, SocketTimeoutException if the deadline passed
+   */
+  private String readRoomCode(SocketChannel client, ByteBuffer buffer, long acceptedNanos)
+      throws IOException {
+    Socket socket = client.socket();
+    InputStream in = socket.getInputStream();
+    while (buffer.hasRemaining()) {
+      long remaining = handshakeTimeoutMillis - (System.nanoTime() - acceptedNanos) / 1_000_000;
+      if (remaining <= 0) {
+        throw new SocketTimeoutException("No room code received in time");
+      }
+      socket.setSoTimeout((int) remaining);
+      int start = buffer.position();
+      int read = in.read(buffer.array(), start, buffer.remaining());
+      if (read == -1) {
+        return null;
+      }
+      buffer.position(start + read);
+      for (int i = start; i < buffer.position(); i++) {
+        if (buffer.get(i) == '\n') {
+          String line = new String(buffer.array(), 0, i, StandardCharsets.UTF_8).strip();
+          if (!line.startsWith(Commands.JOIN_ROOM + ":")) {
+            return null;
+          }
+          return line.substring(Commands.JOIN_ROOM.length() + 1);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * copy bytes from one channel to the other until one side closes, then close both
+   * @param from source channel
+   * @param to   target channel
+   */
+  private void pipe(SocketChannel from, SocketChannel to) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    try {
+      while (from.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          to.write(buffer);
+        }
+        buffer.clear();
+      }
+    } catch (IOException e) {
+      // one side went away, nothing left to forward
+    } finally {
+      close(from);
+      close(to);
+    }
+  }
+
+  private void close(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // already closed
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package network;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the round trip time of a connection from ping samples
+ * Smoothing works like TCP (RFC 6298): new samples move the estimate by 1/8
+ * The smoothed value is read on the answer path, so it is kept in a volatile field and reading
+ * it never blocks, the sample history is only needed for metrics
+ */
+public class RttEstimator {
+
+  private static final int HISTORY_SIZE = 32;
+  private final long[] history = new long[HISTORY_SIZE];
+  private long sampleCount = 0;
+  private volatile long smoothedNanos = 0;
+
+  /**
+   * add a measured round trip
+   * @param rttNanos time between sending the ping and receiving the pong
+   */
+  public synchronized void addSample(long rttNanos) {
+    if (rttNanos < 0) {
+      return;
+    }
+    history[(int) (sampleCount % HISTORY_SIZE)] = rttNanos;
+    if (sampleCount == 0) {
+      smoothedNanos = rttNanos;
+    } else {
+      smoothedNanos += (rttNanos - smoothedNanos) / 8;
+    }
+    sampleCount++;
+  }
+
+  /**
+   * forget all samples and continue with the given estimate, used to replay recorded games
+   * @param rttNanos the estimate to use
+   */
+  synchronized void reset(long rttNanos) {
+    sampleCount = 0;
+    smoothedNanos = rttNanos;
+  }
+
+  /**
+   * @return the smoothed round trip time, 0 if nothing was measured yet
+   */
+  public long getSmoothedNanos() {
+    return smoothedNanos;
+  }
+
+  /**
+   * @return the most recent samples, oldest first
+   */
+  public synchronized long[] getSamples() {
+    int size = (int) Math.min(sampleCount, HISTORY_SIZE);
+    long[] samples = new long[size];
+    for (int i = 0; i < size; i++) {
+      samples[i] = history[(int) ((sampleCount - size + i) % HISTORY_SIZE)];
+    }
+    return samples;
+  }
+
+  /**
+   * @return the smallest of the recent samples, 0 if nothing was measured yet
+   */
+  public synchronized long getMinNanos() {
+    return Arrays.stream(getSamples()).min().orElse(0);
+  }
+
+  public synchronized long getSampleCount() {
+    return sampleCount;
+  }
+}
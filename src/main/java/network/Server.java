@@ -2,33 +2,88 @@ package network;
 
 import core.Answer;
 import core.Commands;
+import core.DifficultyTracker;
 import core.Player;
+import core.PlayerStats;
 import core.Question;
+import core.QuestionStats;
+import core.StatsStore;
 import core.UserInterface;
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Class to handle a game as a server, which won't play it self
  */
-public class Server {
+public class Server implements Drainable {
 
+  private static final long PING_INTERVAL_MILLIS = 2000;
+  static final int DEFAULT_HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+  private static final int LIFETIME_RANKING_SIZE = 5;
+  // system property with the seconds a shutdown waits for running games
+  public static final String DRAIN_TIMEOUT_PROPERTY = "quiz.drainSeconds";
+  public static final long DEFAULT_DRAIN_SECONDS = 120;
+  // how long the players get to close their connections after the game
+  private static final long HANDLER_STOP_MILLIS = 5000;
+  private static final long DRAIN_PROGRESS_MILLIS = 5000;
+  private static final long DEFAULT_PAUSE_MILLIS = 1000;
   private final ExecutorService threadPool;
   private final int numPlayers;
-  private final ServerSocket serverSocket;
+  // null if the server runs as a room inside a shard, clients are then handed in via addClient
+  private final Acceptor acceptor;
+  // waits for the names of new connections, so the accept thread never blocks on a client
+  private final ExecutorService handshakes;
+  private final BlockingQueue<JoinedPlayer> joinedPlayers = new LinkedBlockingQueue<>();
+  private final AtomicInteger joinedClients = new AtomicInteger();
+  private final AcceptMetrics roomMetrics = new AcceptMetrics();
+  private final GameTimings timings = new GameTimings();
+  // pause between the steps of the countdown, the leader board pauses twice as long per rank
+  private long pauseMillis = DEFAULT_PAUSE_MILLIS;
   private final ClientHandler[] clients;
+  private int handshakeTimeoutMillis = DEFAULT_HANDSHAKE_TIMEOUT_MILLIS;
   private final List<Question> questions;
   private final UserInterface ui;
-  private final ConcurrentLinkedQueue<Answer> answers;
-  private CountDownLatch latch;
+  // players in the order their answers arrived, preallocated so answering does not allocate
+  private final ClientHandler[] answered;
+  private final AtomicInteger answerCount = new AtomicInteger();
+  private final ScheduledExecutorService pinger;
+  private volatile CountDownLatch latch;
+  // number of the current round, used to accept only one answer per player and round
+  private volatile int round = -1;
+  // when the current question was sent
+  private volatile long roundStart;
+  // when the players were asked for their answers
+  private volatile long answersRequested;
+  // changed by compare and set only, so starting and calling off a waiting game do not race
+  private final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+  private volatile boolean stopped;
+  // wakes up the game thread when the game is cancelled, it is never interrupted because
+  // interrupting a thread writing to a socket channel closes the channel
+  private final CountDownLatch cancelSignal = new CountDownLatch(1);
+  private final CountDownLatch finished = new CountDownLatch(1);
+  // queued to wake up the game thread waiting for players
+  private static final JoinedPlayer CANCELLED = new JoinedPlayer(null, null);
+  // optional, null if the game is not recorded
+  private volatile GameRecorder recorder;
+  // optional, null if no statistics are kept
+  private StatsStore statsStore;
+  private DifficultyTracker difficulty;
 
   /**
    * create a new game server
@@ -40,79 +95,612 @@ public class Server {
    */
   public Server(UserInterface ui, int port, int numPlayers, List<Question> questions)
       throws IOException {
+    this(ui, port, Acceptor.DEFAULT_BACKLOG, numPlayers, questions);
+  }
+
+  /**
+   * create a new game server
+   * @param ui         helper object for UI output & input
+   * @param port       on which port to listen for clients, 0 for any free port
+   * @param backlog    how many connections the OS queues until they are accepted
+   * @param numPlayers how many players are expected to join
+   * @param questions  the questions for the game
+   * @throws IOException if the socket can not be created
+   */
+  public Server(UserInterface ui, int port, int backlog, int numPlayers,
+      List<Question> questions) throws IOException {
+    this(ui, numPlayers, questions, Acceptor.bind(port, backlog));
+  }
+
+  /**
+   * create a new game server without an own socket, used for rooms inside a shard
+   * @param ui         helper object for UI output & input
+   * @param numPlayers how many players are expected to join
+   * @param questions  the questions for the game
+   */
+  public Server(UserInterface ui, int numPlayers, List<Question> questions) {
+    this(ui, numPlayers, questions, null);
+  }
+
+  /**
+   * @param serverChannel bound socket to accept the players on, null for a room of a shard
+   */
+  private Server(UserInterface ui, int numPlayers, List<Question> questions,
+      ServerSocketChannel serverChannel) {
     this.ui = ui;
     this.questions = questions;
     this.numPlayers = numPlayers;
     threadPool = Executors.newFixedThreadPool(numPlayers);
+    handshakes = Executors.newCachedThreadPool(Server::daemonThread);
+    acceptor = serverChannel == null ? null : new Acceptor(serverChannel, handshakes,
+        (client, address, accepted) -> handshake(client.socket(), address, accepted));
     clients = new ClientHandler[numPlayers];
-    serverSocket = new ServerSocket(port);
-    answers = new ConcurrentLinkedQueue<>();
+    answered = new ClientHandler[numPlayers];
+    pinger = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "pinger");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  private static Thread daemonThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "handshake");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * hand a connected client over to this server, only used if it runs without an own socket
+   * the client only takes a player slot once it has sent its name
+   * @param socket the connection to the client
+   * @return false if all player slots are already taken
+   */
+  public boolean addClient(Socket socket) {
+    if (stopped || joinedClients.get() >= numPlayers) {
+      return false;
+    }
+    long accepted = System.nanoTime();
+    handshakes.execute(() -> handshake(socket, socket.getInetAddress(), accepted));
+    return true;
+  }
+
+  /**
+   * wait for the name of a new client and queue it as a player
+   * connections which don't send their name in time are closed without taking a slot
+   * @param socket   the connection to the client
+   * @param address  remote address of the client
+   * @param accepted nano time the connection was accepted
+   */
+  private void handshake(Socket socket, InetAddress address, long accepted) {
+    try {
+      long remaining = handshakeTimeoutMillis - (System.nanoTime() - accepted) / 1_000_000;
+      if (remaining <= 0) {
+        throw new SocketTimeoutException("Handshake timed out in queue");
+      }
+      socket.setSoTimeout((int) remaining);
+      ClientHandler handler = new ClientHandler(socket, this);
+      if (!handler.readName()) {
+        closeConnection(socket, address);
+        return;
+      }
+      socket.setSoTimeout(0);
+      if (stopped) {
+        handler.sendMessage("The server is shutting down");
+        handler.end();
+        closeConnection(socket, address);
+        return;
+      }
+      if (joinedClients.incrementAndGet() > numPlayers) {
+        handler.sendMessage("The game is already full");
+        handler.end();
+        closeConnection(socket, address);
+        return;
+      }
+      getAcceptMetrics().joined(System.nanoTime() - accepted);
+      joinedPlayers.add(new JoinedPlayer(handler, address));
+    } catch (SocketTimeoutException e) {
+      getAcceptMetrics().handshakeTimeout();
+      closeConnection(socket, address);
+    } catch (IOException e) {
+      closeConnection(socket, address);
+    }
+  }
+
+  private void closeConnection(Socket socket, InetAddress address) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // already closed
+    }
+    releaseAddress(address);
+  }
+
+  private void releaseAddress(InetAddress address) {
+    if (acceptor != null) {
+      acceptor.release(address);
+    }
+  }
+
+  /**
+   * @return metrics of the connections accepted for this game
+   */
+  public AcceptMetrics getAcceptMetrics() {
+    return acceptor != null ? acceptor.getMetrics() : roomMetrics;
+  }
+
+  /**
+   * @return how long the phases of the game took so far
+   */
+  public GameTimings getTimings() {
+    return timings;
+  }
+
+  /**
+   * @return the port the server listens on, -1 if it runs without an own socket
+   */
+  public int getPort() {
+    return acceptor != null ? acceptor.getPort() : -1;
   }
 
   /**
    * Contains the game logic from the server perspective
+   * when the game is over or cancelled all connections and threads of the game are closed
    */
   public void run() {
+    long runStart = System.nanoTime();
+    boolean interrupted = false;
     try {
-      //wait for players to join
+      //wait for players to join, accepting and handshakes run on their own threads
+      if (acceptor != null) {
+        new Thread(acceptor, "acceptor").start();
+      }
       for (int i = 0; i < clients.length; i++) {
-        clients[i] = new ClientHandler(serverSocket.accept(), this);
-        threadPool.execute(clients[i]);
+        JoinedPlayer joined = joinedPlayers.take();
+        checkCancelled();
+        ClientHandler handler = joined.handler();
+        clients[i] = handler;
+        threadPool.execute(() -> {
+          try {
+            handler.run();
+          } finally {
+            releaseAddress(joined.address());
+          }
+        });
+        sendMessage(String.format("Player %s joined", handler.getName()));
+        int player = i;
+        record(r -> r.connect(player, handler.getName()));
       }
+      if (acceptor != null) {
+        acceptor.close();
+      }
+      if (!state.compareAndSet(State.WAITING, State.STARTED)) {
+        throw new CancellationException();
+      }
+      timings.getJoin().add(System.nanoTime() - runStart);
+      ui.showMessage("Connections: " + getAcceptMetrics());
+      //measure round trips off the game thread, they are needed to compensate answer times
+      pinger.scheduleAtFixedRate(this::pingClients, 0, PING_INTERVAL_MILLIS,
+          TimeUnit.MILLISECONDS);
       startCountDown();
       for (Question question : questions) {
-        //always create a new countdown latch, because it can't be reused
-        latch = new CountDownLatch(numPlayers);
-        sendQuestion(question);
+        beginRound(question);
+        //cancel counts down the latch, unless it ran before the latch was created
+        checkCancelled();
         latch.await();
-        analyseResult(question);
-        answers.clear();
+        timings.getAnswers().add(System.nanoTime() - answersRequested);
+        checkCancelled();
+        finishRound(question);
       }
 
+      long leaderboardStart = System.nanoTime();
       sendLeaderBoard(clients);
+      timings.getLeaderboard().add(System.nanoTime() - leaderboardStart);
+      saveStatistics();
       sendMessage("Thanks for playing and goodbye");
-      endClientHandlers();
-    } catch (IOException e) {
-      ui.showError("Could not establish connections: " + e.getMessage());
+      showLatencyMetrics();
+      ui.showMessage("Timings: " + timings);
+    } catch (CancellationException e) {
+      sendMessage("The game was cancelled, the server is shutting down");
     } catch (InterruptedException e) {
+      interrupted = true;
+    } finally {
+      stop();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * call the game off, the players are told and disconnected
+   * a game which is running is stopped right away, use drain to let it finish first
+   */
+  public void cancel() {
+    state.set(State.CANCELLED);
+    wakeUp();
+  }
+
+  /**
+   * call the game off unless all players have joined already
+   * @return true if the game was waiting for players and is cancelled now
+   */
+  public boolean cancelIfWaiting() {
+    if (!state.compareAndSet(State.WAITING, State.CANCELLED)) {
+      return false;
+    }
+    wakeUp();
+    return true;
+  }
+
+  /**
+   * wake up the game thread wherever it waits, so it sees the cancellation
+   */
+  private void wakeUp() {
+    cancelSignal.countDown();
+    joinedPlayers.add(CANCELLED);
+    CountDownLatch current = latch;
+    while (current != null && current.getCount() > 0) {
+      current.countDown();
+    }
+  }
+
+  /**
+   * @throws CancellationException if the game was cancelled
+   */
+  private void checkCancelled() {
+    if (state.get() == State.CANCELLED) {
+      throw new CancellationException();
+    }
+  }
+
+  /**
+   * wait a moment, used to pace the game for the players
+   * @param millis how long to wait
+   * @throws InterruptedException  if interrupted while waiting
+   * @throws CancellationException if the game is cancelled while waiting
+   */
+  private void pause(long millis) throws InterruptedException {
+    if (cancelSignal.await(millis, TimeUnit.MILLISECONDS)) {
+      throw new CancellationException();
+    }
+  }
+
+  /**
+   * stop accepting players and wait for the game to finish, see Drainable
+   * a game still waiting for players is cancelled right away
+   */
+  @Override
+  public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+    if (cancelIfWaiting()) {
+      return awaitTermination(HANDLER_STOP_MILLIS * 2, TimeUnit.MILLISECONDS);
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!finished.await(Math.min(DRAIN_PROGRESS_MILLIS,
+        TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())), TimeUnit.MILLISECONDS)) {
+      if (System.nanoTime() >= deadline) {
+        ui.showMessage("Game did not finish in time, cancelling it");
+        cancel();
+        awaitTermination(HANDLER_STOP_MILLIS * 2, TimeUnit.MILLISECONDS);
+        return false;
+      }
+      ui.showMessage(String.format("Draining: question %d of %d, %d s left", round + 1,
+          questions.size(), TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime())));
+    }
+    return true;
+  }
+
+  /**
+   * wait until the game is over and all its threads are stopped
+   * @param timeout how long to wait
+   * @param unit    unit of the timeout
+   * @return false if the game is still running
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return finished.await(timeout, unit);
+  }
+
+  /**
+   * @return true once all players have joined, until the game is cancelled
+   */
+  public boolean isStarted() {
+    return state.get() == State.STARTED;
+  }
+
+  /**
+   * close the connections and stop the threads of the game
+   * players get a few seconds to close their side, then their connections are closed
+   */
+  private void stop() {
+    stopped = true;
+    if (acceptor != null) {
+      acceptor.close();
+    }
+    pinger.shutdownNow();
+    handshakes.shutdownNow();
+    stopRecording();
+    endClientHandlers();
+    //players which sent their name but did not get a slot before the game ended
+    JoinedPlayer waiting;
+    while ((waiting = joinedPlayers.poll()) != null) {
+      if (waiting == CANCELLED) {
+        continue;
+      }
+      waiting.handler().sendMessage("The server is shutting down");
+      waiting.handler().end();
+      waiting.handler().close();
+      releaseAddress(waiting.address());
+    }
+    threadPool.shutdown();
+    try {
+      if (!threadPool.awaitTermination(HANDLER_STOP_MILLIS, TimeUnit.MILLISECONDS)) {
+        closeClientHandlers();
+        threadPool.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      closeClientHandlers();
+      threadPool.shutdownNow();
       Thread.currentThread().interrupt();
+    } finally {
+      finished.countDown();
     }
   }
 
+  /**
+   * record the game as an event log, has to be called before run
+   * @param recorder the recording to write to
+   */
+  public void setRecorder(GameRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * keep statistics of players and questions across games, has to be called before run
+   * @param statsStore the store to write to
+   */
+  public void setStatsStore(StatsStore statsStore) {
+    this.statsStore = statsStore;
+  }
+
+  /**
+   * count how the questions are answered to learn their difficulty, has to be called before run
+   * @param difficulty the tracker, may be shared by many rooms
+   */
+  public void setDifficultyTracker(DifficultyTracker difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  /**
+   * restrict which connections are accepted, has to be called before run
+   * rooms inside a shard only see the router, their policy is applied by the router
+   * @param admission the policy to use
+   */
+  public void setAdmissionPolicy(AdmissionPolicy admission) {
+    if (acceptor != null) {
+      acceptor.setAdmissionPolicy(admission);
+    }
+  }
+
+  /**
+   * limit how fast a single address may open connections, has to be called before run
+   * @param perSecond connections per second in the long run
+   * @param burst     connections allowed at once
+   */
+  public void setRateLimit(double perSecond, int burst) {
+    if (acceptor != null) {
+      acceptor.setRateLimit(perSecond, burst);
+    }
+  }
+
+  /**
+   * @param handshakeTimeoutMillis how long a new connection may take to send its name
+   */
+  public void setHandshakeTimeout(int handshakeTimeoutMillis) {
+    this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+  }
+
+  /**
+   * @param pauseMillis pause between the steps of the countdown, the leader board pauses twice
+   *                    as long before each rank, 0 runs the game at full speed
+   */
+  public void setPause(long pauseMillis) {
+    this.pauseMillis = pauseMillis;
+  }
+
+  /**
+   * add a client without waiting for a connection, used to replay recorded games
+   * @param index   slot of the player
+   * @param handler the handler representing the player
+   */
+  void registerClient(int index, ClientHandler handler) {
+    clients[index] = handler;
+  }
+
+  /**
+   * send a question and prepare collecting the answers
+   * answer times are measured from GET_ANSWER, not from the question, like on the client
+   * @param question the question to ask
+   */
+  void beginRound(Question question) {
+    long broadcastStart = System.nanoTime();
+    sendQuestion(question);
+    //ready for answers before asking for them
+    startRound(question, System.nanoTime());
+    sendMessage(Commands.GET_ANSWER);
+    answersRequested = System.nanoTime();
+    timings.getBroadcast().add(answersRequested - broadcastStart);
+  }
+
+  /**
+   * prepare collecting the answers of a round, called by beginRound and by the replay
+   * @param question the question asked
+   * @param start    nano time GET_ANSWER is sent, answer times are measured from here
+   */
+  void startRound(Question question, long start) {
+    //always create a new countdown latch, because it can't be reused
+    answerCount.set(0);
+    latch = new CountDownLatch(numPlayers);
+    roundStart = start;
+    round++;
+    record(r -> r.question(question, start));
+  }
+
+  /**
+   * score the collected answers and get ready for the next round
+   * @param question the question which was asked
+   */
+  void finishRound(Question question) {
+    analyseResult(question);
+    Arrays.fill(answered, null);
+  }
+
+  /**
+   * write the final points and close the recording, if any
+   */
+  private void stopRecording() {
+    for (int i = 0; i < clients.length; i++) {
+      int player = i;
+      if (clients[player] != null) {
+        record(r -> r.score(player, clients[player].getPoints()));
+      }
+    }
+    GameRecorder current = recorder;
+    recorder = null;
+    if (current != null) {
+      try {
+        current.close();
+      } catch (IOException e) {
+        ui.showError("Could not write recording: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * write an event to the recording, recording stops if it fails
+   * @param event the event to write
+   */
+  private void record(RecordedEvent event) {
+    GameRecorder current = recorder;
+    if (current == null) {
+      return;
+    }
+    try {
+      event.writeTo(current);
+    } catch (IOException e) {
+      recorder = null;
+      ui.showError("Recording stopped: " + e.getMessage());
+    }
+  }
+
+  /**
+   * find the slot of a player
+   * @param handler the handler of the player
+   * @return index in the clients array, -1 if it is not part of the game
+   */
+  private int indexOf(ClientHandler handler) {
+    for (int i = 0; i < clients.length; i++) {
+      if (clients[i] == handler) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   /**
    * Send a countdown to mark the start of the game
    * @throws InterruptedException if client connections can't be used correctly
    */
   private void startCountDown() throws InterruptedException {
-    Thread.sleep(1000);
+    pause(pauseMillis);
     sendMessage("All players have joined. Get ready, the game is starting in 3 seconds");
-    Thread.sleep(1000);
+    pause(pauseMillis);
     sendMessage("2...");
-    Thread.sleep(1000);
+    pause(pauseMillis);
     sendMessage("1...");
   }
 
+  /**
+   * send a ping to every client
+   */
+  private void pingClients() {
+    for (ClientHandler client : clients) {
+      client.ping();
+    }
+  }
+
   /**
    *  when all players responded, analyse and send the result
+   *  the fastest player is the one with the smallest reaction time, not the first answer received
    * @param question the current question
    */
   private void analyseResult(Question question) {
-    List<Answer> correctGuesses = answers.stream()
-        .filter(x -> x.getAnswer() == question.correctAnswer).toList();
-    Optional<Answer> winner = correctGuesses.stream().findFirst();
-    if (winner.isPresent()) {
-      winner.get().getPlayer().addPoints(1);
-      sendResult(question, correctGuesses.size(), winner.get().getPlayer());
+    int correctGuesses = 0;
+    ClientHandler winner = null;
+    int count = Math.min(answerCount.get(), answered.length);
+    for (int i = 0; i < count; i++) {
+      ClientHandler player = answered[i];
+      boolean correct = player.getAnswer() == question.correctAnswer;
+      player.countAnswer(correct);
+      if (difficulty != null) {
+        difficulty.record(question.getId(), correct, player.getReactionNanos());
+      }
+      if (!correct) {
+        continue;
+      }
+      correctGuesses++;
+      //on equal times the answer which arrived first wins
+      if (winner == null || player.getReactionNanos() < winner.getReactionNanos()) {
+        winner = player;
+      }
+    }
+    if (statsStore != null && question.getId() >= 0) {
+      //only queued, the store writes it on its own thread
+      statsStore.record(new QuestionStats(question.getId(), count, correctGuesses));
+    }
+    if (winner != null) {
+      winner.addPoints(1);
+      sendResult(question, correctGuesses,
+          new Answer(winner.getAnswer(), winner, winner.getReactionNanos()));
     } else {
       sendResult(question, 0, null);
     }
   }
 
   /**
-   * sets each client handler to stop running
+   * estimate how long a player took to react, without the network delay
+   * the time stamped by the client is trusted as long as it is plausible compared to what the
+   * server measured, one round trip is allowed as jitter
+   * @param clientElapsed time between GET_ANSWER and the answer measured by the client, -1 if
+   *                      missing
+   * @param serverElapsed time between sending GET_ANSWER and receiving the answer
+   * @param rtt           smoothed round trip time of the connection
+   * @return compensated reaction time
+   */
+  static long compensateReaction(long clientElapsed, long serverElapsed, long rtt) {
+    long estimate = Math.max(0, serverElapsed - rtt);
+    if (clientElapsed < 0) {
+      return estimate;
+    }
+    long lowerBound = Math.max(0, serverElapsed - 2 * rtt);
+    return Math.min(Math.max(clientElapsed, lowerBound), serverElapsed);
+  }
+
+  /**
+   * show the measured round trip times of all players on the server
+   */
+  private void showLatencyMetrics() {
+    for (ClientHandler client : clients) {
+      RttEstimator rtt = client.getRtt();
+      ui.showMessage(String.format("RTT %s: smoothed %.2f ms, min %.2f ms, %d samples",
+          client.getName(), rtt.getSmoothedNanos() / 1e6, rtt.getMinNanos() / 1e6,
+          rtt.getSampleCount()));
+    }
+  }
+
+  /**
+   * tell each client the game is over, its handler stops once the client closed the connection
    */
   private void endClientHandlers() {
-    //end client handler threads
     for (ClientHandler c : clients) {
       if (c != null) {
         c.end();
@@ -120,12 +708,24 @@ public class Server {
     }
   }
 
+  /**
+   * close the connections of clients which did not close them after the game
+   */
+  private void closeClientHandlers() {
+    for (ClientHandler c : clients) {
+      if (c != null) {
+        c.close();
+      }
+    }
+  }
+
   /**
    * Send the given string to all clients
    *
    * @param message the string to send
    */
   private void sendMessage(String message) {
+    record(r -> r.frame(message));
     for (ClientHandler client : clients) {
       if (client == null) {
         continue;
@@ -136,35 +736,56 @@ public class Server {
   }
 
   /**
-   * handle input from a client, is called by the client handlers
+   * handle a decoded message from a client, is called by the client handlers
+   * does not allocate for answers and pongs, as these arrive at a high rate
    *
-   * @param command command to process
-   * @param handler the origin of the message
+   * @param message     the message to process
+   * @param handler     the origin of the message
+   * @param arrivalNano nano time the message arrived
    */
-  public void handleClientInput(String command, ClientHandler handler) {
-    if(command == null){
+  void handleMessage(ClientMessage message, ClientHandler handler, long arrivalNano) {
+    switch (message.getType()) {
+      case SET_NAME -> {
+        //the name was set when joining, this renames the player
+        String previousName = handler.getName();
+        handler.setName(message.getName());
+        sendMessage(String.format("Player %s is now called %s", previousName, handler.getName()));
+        record(r -> r.connect(indexOf(handler), handler.getName()));
+      }
+      case ANSWER -> addAnswer(handler, message.getAnswer(), message.getValue(), arrivalNano);
+      case PONG -> handler.getRtt().addSample(arrivalNano - message.getValue());
+      default -> {
+        // nothing to do
+      }
+    }
+  }
+
+  /**
+   * Add the answer for the current round and count down the latch
+   *
+   * @param handler       the player who answered
+   * @param answer        the answer given
+   * @param clientElapsed reaction time measured by the client, -1 if missing
+   * @param arrivalNano   nano time the answer arrived
+   */
+  private void addAnswer(ClientHandler handler, char answer, long clientElapsed,
+      long arrivalNano) {
+    CountDownLatch currentLatch = latch;
+    long rtt = handler.getRtt().getSmoothedNanos();
+    long reaction = compensateReaction(clientElapsed, arrivalNano - roundStart, rtt);
+    if (currentLatch == null || !handler.setAnswer(round, answer, reaction)) {
       return;
     }
-    //Split the message, all are separated by a :
-    String[] parts = command.split(":");
-    switch (parts[0]) {
-      case Commands.SET_NAME:
-        //Set the name of the player
-        handler.setName(parts[1]);
-        sendMessage(String.format("Player %s joined", handler.getName()));
-        break;
-      case Commands.ANSWER:
-        //Add the answer for the current round and count down the latch
-        answers.add(new Answer(parts[1].charAt(0), handler));
-        latch.countDown();
-        break;
-      default:
-        break;
+    if (recorder != null) {
+      record(r -> r.answer(indexOf(handler), arrivalNano, rtt, answer, clientElapsed));
     }
+    answered[answerCount.getAndIncrement()] = handler;
+    currentLatch.countDown();
   }
 
   /**
-   * Send a question with its answer possibilities
+   * Send a question with its answer possibilities, the players are asked for their answer
+   * separately
    *
    * @param question the question to show
    */
@@ -173,7 +794,6 @@ public class Server {
     printAnswer('a', question.getAnswerA());
     printAnswer('b', question.getAnswerB());
     printAnswer('c', question.getAnswerC());
-    sendMessage(Commands.GET_ANSWER);
   }
 
   /**
@@ -181,14 +801,42 @@ public class Server {
    *
    * @param question       the question which was asked
    * @param correctGuesses how many players got the correct answer
-   * @param winner         which player was the fastest and won the round
+   * @param winner         the fastest correct answer, which won the round
    */
-  private void sendResult(Question question, int correctGuesses, Player winner) {
+  private void sendResult(Question question, int correctGuesses, Answer winner) {
     sendMessage(
         String.format("The correct answer was '%s' (%s), correctly guessed by %d players.%n",
             question.correctAnswer, question.getCorrectAnswerText(), correctGuesses));
     if (winner != null) {
-      sendMessage(String.format("%s was the fastest and gets the point.%n", winner.getName()));
+      sendMessage(String.format("%s was the fastest (%.2f s) and gets the point.%n",
+          winner.getPlayer().getName(), winner.getReactionNanos() / 1e9));
+    }
+  }
+
+  /**
+   * add the results of this game to the lifetime statistics and send the lifetime ranking
+   */
+  private void saveStatistics() {
+    if (statsStore == null) {
+      return;
+    }
+    for (ClientHandler client : clients) {
+      statsStore.record(new PlayerStats(client.getName(), 1, client.getPoints(),
+          client.getAnswersGiven(), client.getCorrectAnswers(),
+          client.getTotalReactionNanos()));
+    }
+    try {
+      statsStore.flush();
+    } catch (IOException e) {
+      ui.showError("Could not save statistics: " + e.getMessage());
+    }
+    sendMessage("All time best players:");
+    List<PlayerStats> ranking = statsStore.ranking(LIFETIME_RANKING_SIZE);
+    for (int i = 0; i < ranking.size(); i++) {
+      PlayerStats stats = ranking.get(i);
+      sendMessage(String.format("%d. %s (%d points in %d games, %.0f%% correct, avg %.2f s)",
+          i + 1, stats.name(), stats.points(), stats.gamesPlayed(),
+          stats.getCorrectRate() * 100, stats.getAverageReactionNanos() / 1e9));
     }
   }
 
@@ -220,7 +868,7 @@ public class Server {
     int previousRank = 0;
     for (int i = 0; i < players.length; i++) {
       //Add some delay to look more naturally
-      Thread.sleep(2000);
+      pause(2 * pauseMillis);
       Player player = playersSorted.get(i);
       // if two or more players have the same number of points, they share the same rank
       // the next player will be placed accordingly on the next free rank (two player on first rank mean the third one will get rank 3)
@@ -238,4 +886,27 @@ public class Server {
   public UserInterface getUi() {
     return ui;
   }
+
+  /**
+   * Lifecycle of a game, a waiting game is either started or cancelled, a started one may be
+   * cancelled later
+   */
+  private enum State {
+    WAITING, STARTED, CANCELLED
+  }
+
+  /**
+   * A client which sent its name and waits for the game to start
+   */
+  private record JoinedPlayer(ClientHandler handler, InetAddress address) {
+
+  }
+
+  /**
+   * Something to write to the game recording
+   */
+  private interface RecordedEvent {
+
+    void writeTo(GameRecorder recorder) throws IOException;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,255 @@
+package network;
+
+import core.Commands;
+import core.DifficultyTracker;
+import core.Importer;
+import core.Question;
+import core.QuestionSampler;
+import core.UserInterface;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A shard hosts the rooms assigned to it by the router
+ * It listens on a loopback port, the router forwards each player connection starting with the
+ * JoinRoom line, which is used to hand the connection over to the server running the room
+ * Can run inside the supervisor process or as an own worker JVM via main
+ */
+public class Shard implements Runnable, Drainable {
+
+  // a JoinRoom line is short, anything longer is not a valid client
+  private static final int MAX_LINE_LENGTH = 256;
+  private static final int JOIN_TIMEOUT_MILLIS = 10_000;
+  private static final long DRAIN_PROGRESS_MILLIS = 5000;
+  private static final long STOP_MILLIS = 10_000;
+  // how often a worker shares its answer counts with the supervisor
+  private static final long DIFFICULTY_SHARE_SECONDS = 30;
+  private final UserInterface ui;
+  private final ServerSocket listener;
+  private final int playersPerRoom;
+  private final Supplier<List<Question>> questionSupplier;
+  private final ExecutorService rooms = Executors.newCachedThreadPool();
+  private final Map<String, Server> openRooms = new ConcurrentHashMap<>();
+  private DifficultyTracker difficulty;
+  // guards draining against opening rooms, see drain
+  private final Object roomLock = new Object();
+  private volatile boolean draining;
+
+  /**
+   * create a new shard listening on the loopback interface
+   * @param ui               helper object for UI output
+   * @param port             loopback port to listen for the router on
+   * @param playersPerRoom   how many players are expected in each room
+   * @param questionSupplier provides the questions for each new room
+   * @throws IOException if the socket can not be created
+   */
+  public Shard(UserInterface ui, int port, int playersPerRoom,
+      Supplier<List<Question>> questionSupplier) throws IOException {
+    this.ui = ui;
+    this.playersPerRoom = playersPerRoom;
+    this.questionSupplier = questionSupplier;
+    listener = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+  }
+
+  /**
+   * entry point of a worker JVM started by the supervisor
+   * @param args port, questions file, players per room, questions per room, directory for the
+   *             answer counts
+   */
+  public static void main(String[] args) {
+    UserInterface ui = new UserInterface();
+    try {
+      List<Question> questions = new Importer(args[1]).getQuestions();
+      int numQuestions = Integer.parseInt(args[3]);
+      int port = Integer.parseInt(args[0]);
+      // workers count the answers of their rooms in a file of their own, the supervisor merges
+      // these into the difficulty file and the workers read the scores back from it
+      DifficultyTracker difficulty = new DifficultyTracker(questions.size(),
+          DifficultyTracker.fileFor(args[1]));
+      difficulty.shareCountsVia(DifficultyTracker.countsFileFor(Path.of(args[4]), port));
+      difficulty.startFolding(DIFFICULTY_SHARE_SECONDS, TimeUnit.SECONDS);
+      QuestionSampler sampler = new QuestionSampler(difficulty);
+      Shard shard = new Shard(ui, port, Integer.parseInt(args[2]),
+          () -> sampler.sample(questions, numQuestions, QuestionSampler.DEFAULT_CURVE));
+      shard.setDifficultyTracker(difficulty);
+      // the supervisor stops a worker with SIGTERM, running rooms get to finish
+      long drainSeconds = Long.getLong(Server.DRAIN_TIMEOUT_PROPERTY,
+          Server.DEFAULT_DRAIN_SECONDS);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          shard.drain(drainSeconds, TimeUnit.SECONDS);
+          difficulty.close();
+        } catch (IOException e) {
+          ui.showError("Could not share the answer counts: " + e.getMessage());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }, "drain"));
+      shard.run();
+    } catch (IOException e) {
+      ui.showError("Could not start shard: " + e.getMessage());
+    }
+  }
+
+  /**
+   * count the answers of all rooms of this shard, has to be called before run
+   * @param difficulty the tracker, may be shared with other shards
+   */
+  public void setDifficultyTracker(DifficultyTracker difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  /**
+   * accept connections from the router and dispatch them to their rooms
+   */
+  @Override
+  public void run() {
+    try {
+      while (!listener.isClosed()) {
+        Socket socket = listener.accept();
+        rooms.execute(() -> dispatch(socket));
+      }
+    } catch (IOException e) {
+      if (!draining) {
+        ui.showError("Shard stopped: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * stop accepting players, wait for the running rooms and stop all threads, see Drainable
+   */
+  @Override
+  public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+    synchronized (roomLock) {
+      // dispatch checks the flag and opens its room under the same lock, so no room is opened
+      // after the waiting ones are called off
+      draining = true;
+      openRooms.values().forEach(Server::cancelIfWaiting);
+    }
+    try {
+      listener.close();
+    } catch (IOException e) {
+      // already closed
+    }
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!openRooms.isEmpty() && System.nanoTime() < deadline) {
+      ui.showMessage(String.format("Shard on port %d draining: %d rooms playing, %d s left",
+          getPort(), openRooms.size(),
+          TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime())));
+      Thread.sleep(Math.max(1, Math.min(DRAIN_PROGRESS_MILLIS,
+          TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+    }
+    boolean drained = openRooms.isEmpty();
+    if (!drained) {
+      ui.showMessage(String.format("Shard on port %d cancels %d rooms", getPort(),
+          openRooms.size()));
+      openRooms.values().forEach(Server::cancel);
+    }
+    rooms.shutdown();
+    if (!rooms.awaitTermination(STOP_MILLIS, TimeUnit.MILLISECONDS)) {
+      rooms.shutdownNow();
+    }
+    return drained;
+  }
+
+  /**
+   * read the room code and hand the connection to the room, a new room is created if needed
+   * @param socket connection forwarded by the router
+   */
+  private void dispatch(Socket socket) {
+    try {
+      // the router only forwards after it read the line, so it is already on its way
+      socket.setSoTimeout(JOIN_TIMEOUT_MILLIS);
+      String line = readLine(socket.getInputStream());
+      if (line == null || !line.startsWith(Commands.JOIN_ROOM + ":")) {
+        socket.close();
+        return;
+      }
+      String roomCode = line.substring(Commands.JOIN_ROOM.length() + 1);
+      Server room;
+      synchronized (roomLock) {
+        room = draining ? null : openRooms.computeIfAbsent(roomCode, this::openRoom);
+      }
+      if (room == null) {
+        reject(socket, "The server is shutting down");
+      } else if (!room.addClient(socket)) {
+        reject(socket, "Room " + roomCode + " is full");
+      }
+    } catch (IOException e) {
+      ui.showError("Could not dispatch player: " + e.getMessage());
+      try {
+        socket.close();
+      } catch (IOException closeFailed) {
+        // already closed
+      }
+    }
+  }
+
+  /**
+   * tell a player why it can not join and close the connection
+   * @param socket  connection forwarded by the router
+   * @param message reason shown to the player
+   * @throws IOException if writing fails
+   */
+  private static void reject(Socket socket, String message) throws IOException {
+    socket.getOutputStream().write((message + "\n").getBytes(StandardCharsets.UTF_8));
+    socket.getOutputStream().write((Commands.END_GAME + "\n").getBytes(StandardCharsets.UTF_8));
+    socket.close();
+  }
+
+  /**
+   * create and start a room, it is removed again when its game is over
+   * @param roomCode the code of the room
+   * @return the server running the room
+   */
+  private Server openRoom(String roomCode) {
+    Server room = new Server(ui, playersPerRoom, questionSupplier.get());
+    room.setDifficultyTracker(difficulty);
+    rooms.execute(() -> {
+      try {
+        room.run();
+      } finally {
+        openRooms.remove(roomCode, room);
+      }
+    });
+    return room;
+  }
+
+  public int getPort() {
+    return listener.getLocalPort();
+  }
+
+  /**
+   * read a single line without buffering, so the bytes following it stay in the stream
+   * @param in stream to read from
+   * @return the line without the line break or null if the stream ended before
+   * @throws IOException if reading fails
+   */
+  static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b == -1 || line.size() >= MAX_LINE_LENGTH) {
+        return null;
+      }
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    return line.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,67 @@
+package network;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring mapping room codes to shards
+ * Each shard is placed multiple times on the ring, so rooms spread evenly and adding a shard
+ * only moves the rooms between the new points and their predecessors
+ */
+public class ShardRing {
+
+  private static final int VIRTUAL_NODES = 64;
+  private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+  private final int numShards;
+
+  /**
+   * create a ring for the given number of shards
+   * @param numShards number of shards, numbered from 0
+   */
+  public ShardRing(int numShards) {
+    if (numShards < 1) {
+      throw new IllegalArgumentException("At least one shard is needed");
+    }
+    this.numShards = numShards;
+    for (int shard = 0; shard < numShards; shard++) {
+      for (int node = 0; node < VIRTUAL_NODES; node++) {
+        ring.put(hash("shard-" + shard + "#" + node), shard);
+      }
+    }
+  }
+
+  /**
+   * find the shard responsible for a room
+   * @param roomCode the code of the room
+   * @return index of the shard
+   */
+  public int shardFor(String roomCode) {
+    Map.Entry<Integer, Integer> entry = ring.ceilingEntry(hash(roomCode));
+    if (entry == null) {
+      entry = ring.firstEntry();
+    }
+    return entry.getValue();
+  }
+
+  public int getNumShards() {
+    return numShards;
+  }
+
+  /**
+   * FNV-1a hash with a final avalanche step, String.hashCode clusters too much for short codes
+   * @param key the string to hash
+   * @return hash value
+   */
+  private static int hash(String key) {
+    int h = 0x811c9dc5;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      h ^= b;
+      h *= 0x01000193;
+    }
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    return h;
+  }
+}
@@ -0,0 +1,213 @@
+package network;
+
+import core.DifficultyTracker;
+import core.Question;
+import core.UserInterface;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a sharded game: starts a number of shards, either as threads in this JVM or as own
+ * worker JVMs, and a router in front of them which distributes the rooms
+ * Shard i listens on loopback port (port + 1 + i)
+ */
+public class Supervisor implements Runnable, Drainable {
+
+  // time a worker gets after the deadline to cancel its rooms and exit
+  private static final long WORKER_STOP_NANOS = TimeUnit.SECONDS.toNanos(15);
+  private final UserInterface ui;
+  private final int port;
+  private final int[] shardPorts;
+  private final List<Process> workers = new ArrayList<>();
+  private final List<Shard> shards = new ArrayList<>();
+  private volatile Router router;
+  private volatile boolean draining;
+  private final CountDownLatch drained = new CountDownLatch(1);
+  private AdmissionPolicy admission = new AdmissionPolicy();
+  private int backlog = Acceptor.DEFAULT_BACKLOG;
+  private double connectionsPerSecond = Acceptor.DEFAULT_RATE;
+  private int burst = Acceptor.DEFAULT_BURST;
+  private DifficultyTracker difficulty;
+
+  /**
+   * create a new supervisor
+   * @param ui        helper object for UI output
+   * @param port      public port the players connect to
+   * @param numShards how many shards to start
+   */
+  public Supervisor(UserInterface ui, int port, int numShards) {
+    this.ui = ui;
+    this.port = port;
+    shardPorts = new int[numShards];
+    for (int i = 0; i < numShards; i++) {
+      shardPorts[i] = port + 1 + i;
+    }
+  }
+
+  /**
+   * restrict which players may connect to the router
+   * @param admission the policy to use
+   */
+  public void setAdmissionPolicy(AdmissionPolicy admission) {
+    this.admission = admission;
+  }
+
+  /**
+   * @param backlog how many connections the OS queues for the router until they are accepted
+   */
+  public void setBacklog(int backlog) {
+    this.backlog = backlog;
+  }
+
+  /**
+   * limit how fast a single address may open connections to the router
+   * @param perSecond connections per second in the long run
+   * @param burst     connections allowed at once
+   */
+  public void setRateLimit(double perSecond, int burst) {
+    this.connectionsPerSecond = perSecond;
+    this.burst = burst;
+  }
+
+  /**
+   * @param difficulty counts the answers of all rooms of shards started in this JVM and merges
+   *                   the counts of the worker JVMs, has to be set before the shards are started
+   */
+  public void setDifficultyTracker(DifficultyTracker difficulty) {
+    this.difficulty = difficulty;
+  }
+
+  /**
+   * start the shards as threads inside this JVM
+   * @param playersPerRoom   how many players are expected in each room
+   * @param questionSupplier provides the questions for each new room
+   * @throws IOException if a shard socket can not be created
+   */
+  public void startShards(int playersPerRoom, Supplier<List<Question>> questionSupplier)
+      throws IOException {
+    for (int i = 0; i < shardPorts.length; i++) {
+      Shard shard = new Shard(ui, shardPorts[i], playersPerRoom, questionSupplier);
+      shard.setDifficultyTracker(difficulty);
+      shards.add(shard);
+      Thread thread = new Thread(shard, "shard-" + i);
+      thread.start();
+    }
+  }
+
+  /**
+   * start the shards as worker JVMs, each one with its own heap and garbage collector
+   * @param playersPerRoom   how many players are expected in each room
+   * @param questionsFile    file to load the questions from
+   * @param questionsPerRoom how many questions are asked in each room
+   * @param countsDirectory  where the workers share their answer counts, created if needed
+   * @throws IOException if a worker process can not be started
+   */
+  public void startWorkers(int playersPerRoom, String questionsFile, int questionsPerRoom,
+      Path countsDirectory) throws IOException {
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    // workers wait as long for their rooms as this process does
+    String drainTimeout = "-D" + Server.DRAIN_TIMEOUT_PROPERTY + "=" + Long.getLong(
+        Server.DRAIN_TIMEOUT_PROPERTY, Server.DEFAULT_DRAIN_SECONDS);
+    Files.createDirectories(countsDirectory);
+    List<Path> counts = new ArrayList<>();
+    for (int shardPort : shardPorts) {
+      // counts left by an earlier run are already merged into the difficulty file
+      Path countsFile = DifficultyTracker.countsFileFor(countsDirectory, shardPort);
+      Files.deleteIfExists(countsFile);
+      counts.add(countsFile);
+    }
+    if (difficulty != null) {
+      difficulty.mergeCountsFrom(counts);
+    }
+    for (int shardPort : shardPorts) {
+      workers.add(new ProcessBuilder(java, drainTimeout, "-cp",
+          System.getProperty("java.class.path"), Shard.class.getName(),
+          String.valueOf(shardPort), questionsFile, String.valueOf(playersPerRoom),
+          String.valueOf(questionsPerRoom), countsDirectory.toString())
+          .inheritIO()
+          .start());
+    }
+  }
+
+  /**
+   * run the router in front of the started shards
+   * returns once the router is closed, during a drain only after the shards have drained, so
+   * the answers of their last games are still counted by the difficulty tracker
+   */
+  @Override
+  public void run() {
+    try {
+      ui.showMessage(String.format("Routing rooms on port %d to %d shards", port,
+          shardPorts.length));
+      router = new Router(ui, port, backlog, shardPorts, admission);
+      router.setRateLimit(connectionsPerSecond, burst);
+      if (draining) {
+        router.close();
+      }
+      router.run();
+    } catch (IOException e) {
+      ui.showError("Could not start router: " + e.getMessage());
+    }
+    if (draining) {
+      try {
+        drained.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * stop the router, then drain all shards within the same deadline, see Drainable
+   * workers are asked to drain with SIGTERM and killed if they are still running afterwards
+   */
+  @Override
+  public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+    draining = true;
+    try {
+      return drainAll(timeout, unit);
+    } finally {
+      drained.countDown();
+    }
+  }
+
+  private boolean drainAll(long timeout, TimeUnit unit) throws InterruptedException {
+    Router current = router;
+    if (current != null) {
+      current.close();
+    }
+    ui.showMessage("Draining: no new players are accepted");
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    workers.forEach(Process::destroy);
+    boolean allDrained = true;
+    for (Shard shard : shards) {
+      allDrained &= shard.drain(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+    for (Process worker : workers) {
+      // the worker cancels its rooms at the deadline, give it a moment to close them
+      if (!worker.waitFor(Math.max(0, deadline - System.nanoTime()) + WORKER_STOP_NANOS,
+          TimeUnit.NANOSECONDS)) {
+        worker.destroyForcibly();
+        allDrained = false;
+      }
+    }
+    if (difficulty != null && !workers.isEmpty()) {
+      // the workers wrote their last counts while shutting down
+      try {
+        difficulty.fold();
+      } catch (IOException e) {
+        ui.showError("Could not merge the answer counts: " + e.getMessage());
+      }
+    }
+    ui.showMessage(allDrained ? "All rooms finished" : "Some rooms had to be cancelled");
+    return allDrained;
+  }
+}
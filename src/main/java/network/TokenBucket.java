@@ -0,0 +1,54 @@
+package network;
+
+/**
+ * Classic token bucket: tokens are refilled at a fixed rate up to a maximum, every action takes
+ * one token and is refused if none is left. Allows short bursts but limits the long term rate
+ */
+public class TokenBucket {
+
+  private final double tokensPerNano;
+  private final double capacity;
+  private double tokens;
+  private long lastRefill;
+
+  /**
+   * create a full bucket
+   * @param perSecond how many tokens are refilled per second
+   * @param burst     maximum number of tokens
+   * @param now       current nano time
+   */
+  public TokenBucket(double perSecond, int burst, long now) {
+    this.tokensPerNano = perSecond / 1e9;
+    this.capacity = burst;
+    this.tokens = burst;
+    this.lastRefill = now;
+  }
+
+  /**
+   * take a token if one is available
+   * @param now current nano time
+   * @return false if the bucket is empty
+   */
+  public synchronized boolean tryAcquire(long now) {
+    refill(now);
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  /**
+   * @param now current nano time
+   * @return true if the bucket is full again, it then behaves like a new one
+   */
+  public synchronized boolean isFull(long now) {
+    refill(now);
+    return tokens >= capacity;
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+    lastRefill = now;
+  }
+}
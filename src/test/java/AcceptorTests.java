@@ -0,0 +1,45 @@
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import network.Acceptor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AcceptorTests {
+
+  @Test
+  void TestRateLimitedConnectionIsToldWhy() throws Exception {
+    BlockingQueue<SocketChannel> accepted = new LinkedBlockingQueue<>();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Acceptor acceptor = new Acceptor(0, Acceptor.DEFAULT_BACKLOG, executor,
+        (client, address, nanos) -> accepted.add(client))) {
+      acceptor.setRateLimit(0.001, 1);
+      new Thread(acceptor, "acceptor").start();
+      try (Socket first = new Socket(InetAddress.getLoopbackAddress(), acceptor.getPort());
+          Socket second = new Socket(InetAddress.getLoopbackAddress(), acceptor.getPort())) {
+        SocketChannel handedOver = accepted.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(handedOver);
+        // the first connection is let through, the second one exceeds the burst
+        Assertions.assertEquals(first.getLocalPort(),
+            ((InetSocketAddress) handedOver.getRemoteAddress()).getPort());
+        second.setSoTimeout(5000);
+        BufferedReader in = new BufferedReader(new InputStreamReader(second.getInputStream()));
+        Assertions.assertTrue(in.readLine().startsWith("Too many connections"));
+        Assertions.assertEquals("EndGame", in.readLine());
+        Assertions.assertNull(in.readLine());
+        Assertions.assertEquals(1, acceptor.getMetrics().getRateLimited());
+        handedOver.close();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
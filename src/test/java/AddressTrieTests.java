@@ -0,0 +1,52 @@
+import core.AddressTrie;
+import core.IpAddress;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AddressTrieTests {
+
+
+  private static AddressTrie<String> trie() {
+    AddressTrie<String> trie = new AddressTrie<>();
+    trie.put(IpAddress.parseRange("10.0.0.0/8"), "company");
+    trie.put(IpAddress.parseRange("10.1.2.0/24"), "venue");
+    trie.put(IpAddress.parseRange("10.1.2.3"), "stage");
+    trie.put(IpAddress.parseRange("2001:db8::/32"), "v6");
+    return trie;
+  }
+
+  @Test
+  void TestLongestPrefixWins() {
+    AddressTrie<String> trie = trie();
+    Assertions.assertEquals("company", trie.longestMatch(IpAddress.parse("10.200.0.1")));
+    Assertions.assertEquals("venue", trie.longestMatch(IpAddress.parse("10.1.2.4")));
+    Assertions.assertEquals("stage", trie.longestMatch(IpAddress.parse("10.1.2.3")));
+    Assertions.assertEquals(4, trie.size());
+  }
+
+  @Test
+  void TestNoMatch() {
+    AddressTrie<String> trie = trie();
+    Assertions.assertNull(trie.longestMatch(IpAddress.parse("192.168.0.1")));
+    Assertions.assertNull(trie.longestMatch(IpAddress.parse("2001:db9::1")));
+  }
+
+  @Test
+  void TestIPv6Range() {
+    Assertions.assertEquals("v6", trie().longestMatch(IpAddress.parse("2001:db8:ffff::42")));
+  }
+
+  @Test
+  void TestDefaultRoute() {
+    AddressTrie<String> trie = trie();
+    trie.put(IpAddress.parseRange("0.0.0.0/0"), "any");
+    Assertions.assertEquals("any", trie.longestMatch(IpAddress.parse("192.168.0.1")));
+  }
+
+  @Test
+  void TestInvalidRanges() {
+    Assertions.assertNull(IpAddress.parseRange("10.0.0.0/33"));
+    Assertions.assertNull(IpAddress.parseRange("10.0.0.0/"));
+    Assertions.assertNull(IpAddress.parseRange("10.0.0/8"));
+  }
+}
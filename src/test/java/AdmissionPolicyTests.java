@@ -0,0 +1,38 @@
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import network.AdmissionPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AdmissionPolicyTests {
+
+
+  @Test
+  void TestEverythingAdmittedByDefault() throws UnknownHostException {
+    AdmissionPolicy policy = new AdmissionPolicy();
+    Assertions.assertTrue(policy.admit(InetAddress.getByName("203.0.113.7")));
+  }
+
+  @Test
+  void TestAllowAndDenyRanges() throws UnknownHostException {
+    AdmissionPolicy policy = new AdmissionPolicy();
+    policy.allow("192.168.0.0/16");
+    policy.deny("192.168.66.0/24");
+    Assertions.assertTrue(policy.admit(InetAddress.getByName("192.168.1.10")));
+    Assertions.assertFalse(policy.admit(InetAddress.getByName("192.168.66.10")));
+    Assertions.assertFalse(policy.admit(InetAddress.getByName("10.0.0.1")));
+  }
+
+  @Test
+  void TestConnectionLimitPerAddress() throws UnknownHostException {
+    AdmissionPolicy policy = new AdmissionPolicy();
+    policy.setMaxPerAddress(2);
+    InetAddress address = InetAddress.getByName("10.0.0.1");
+    Assertions.assertTrue(policy.admit(address));
+    Assertions.assertTrue(policy.admit(address));
+    Assertions.assertFalse(policy.admit(address));
+    Assertions.assertTrue(policy.admit(InetAddress.getByName("10.0.0.2")));
+    policy.release(address);
+    Assertions.assertTrue(policy.admit(address));
+  }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.StringReader;
+import network.ClientMessage;
+import network.ClientMessage.Type;
+import network.CommandDecoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CommandDecoderTests {
+
+
+  @Test
+  void TestDecodeAllCommands() throws IOException {
+    CommandDecoder decoder = new CommandDecoder(new StringReader(
+        "SetName:Alice\nAnswer:B:1234\r\nAnswer:C\nPong:987\nEndGame\nJoinRoom:x\n"));
+    ClientMessage message = new ClientMessage();
+
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.SET_NAME, message.getType());
+    Assertions.assertEquals("Alice", message.getName());
+
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.ANSWER, message.getType());
+    Assertions.assertEquals('B', message.getAnswer());
+    Assertions.assertEquals(1234, message.getValue());
+
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals('C', message.getAnswer());
+    Assertions.assertEquals(-1, message.getValue());
+
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.PONG, message.getType());
+    Assertions.assertEquals(987, message.getValue());
+
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.END_GAME, message.getType());
+
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+
+    Assertions.assertFalse(decoder.next(message));
+  }
+
+  @Test
+  void TestLastLineWithoutLineBreak() throws IOException {
+    CommandDecoder decoder = new CommandDecoder(new StringReader("Answer:A"));
+    ClientMessage message = new ClientMessage();
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.ANSWER, message.getType());
+    Assertions.assertFalse(decoder.next(message));
+  }
+
+  @Test
+  void TestTooLongLineIsDropped() throws IOException {
+    CommandDecoder decoder = new CommandDecoder(
+        new StringReader("SetName:" + "x".repeat(5000) + "\nAnswer:A\n"));
+    ClientMessage message = new ClientMessage();
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+    Assertions.assertTrue(decoder.next(message));
+    Assertions.assertEquals(Type.ANSWER, message.getType());
+    Assertions.assertFalse(decoder.next(message));
+  }
+
+  @Test
+  void TestInvalidMessages() {
+    ClientMessage message = new ClientMessage();
+    CommandDecoder.decode("Answer:", message);
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+    CommandDecoder.decode("Pong:abc", message);
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+    CommandDecoder.decode("Answe:A", message);
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+    CommandDecoder.decode("Pong:9223372036854775808", message);
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+    CommandDecoder.decode("Pong:-", message);
+    Assertions.assertEquals(Type.UNKNOWN, message.getType());
+  }
+
+  @Test
+  void TestPongWithAnyNanoTime() {
+    // System.nanoTime may be negative or use all 19 digits
+    ClientMessage message = new ClientMessage();
+    CommandDecoder.decode("Pong:-1234567890123", message);
+    Assertions.assertEquals(Type.PONG, message.getType());
+    Assertions.assertEquals(-1234567890123L, message.getValue());
+    CommandDecoder.decode("Pong:" + Long.MAX_VALUE, message);
+    Assertions.assertEquals(Type.PONG, message.getType());
+    Assertions.assertEquals(Long.MAX_VALUE, message.getValue());
+  }
+}
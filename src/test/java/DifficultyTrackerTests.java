@@ -0,0 +1,131 @@
+import core.DifficultyCurve;
+import core.DifficultyTracker;
+import core.Question;
+import core.QuestionSampler;
+import core.QuestionStats;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DifficultyTrackerTests {
+
+  @TempDir
+  Path dir;
+
+  private static List<Question> catalog(int size) {
+    List<Question> questions = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      questions.add(new Question(i, "Question " + i, "a", "b", "c", 'A'));
+    }
+    return questions;
+  }
+
+  /**
+   * question i is answered correctly by i of 10 players, so lower ids are harder
+   */
+  private static void answer(DifficultyTracker tracker, int size) {
+    for (int id = 0; id < size; id++) {
+      for (int player = 0; player < 10; player++) {
+        tracker.record(id, player < id, 2_000_000_000L);
+      }
+    }
+  }
+
+  @Test
+  void TestUnansweredQuestionIsUnknown() throws IOException {
+    DifficultyTracker tracker = new DifficultyTracker(3, dir.resolve("q.difficulty"));
+    tracker.fold();
+    Assertions.assertEquals(DifficultyTracker.UNKNOWN, tracker.getDifficulty(1), 1e-9);
+    Assertions.assertEquals(DifficultyTracker.UNKNOWN, tracker.getDifficulty(42), 1e-9);
+  }
+
+  @Test
+  void TestWrongAnswersMakeQuestionHarder() throws IOException {
+    DifficultyTracker tracker = new DifficultyTracker(11, dir.resolve("q.difficulty"));
+    answer(tracker, 11);
+    tracker.fold();
+    for (int id = 1; id < 11; id++) {
+      Assertions.assertTrue(tracker.getDifficulty(id) < tracker.getDifficulty(id - 1));
+    }
+  }
+
+  @Test
+  void TestSlowAnswersMakeQuestionHarder() throws IOException {
+    DifficultyTracker tracker = new DifficultyTracker(2, dir.resolve("q.difficulty"));
+    for (int player = 0; player < 10; player++) {
+      tracker.record(0, true, 1_000_000_000L);
+      tracker.record(1, true, 15_000_000_000L);
+    }
+    tracker.fold();
+    Assertions.assertTrue(tracker.getDifficulty(1) > tracker.getDifficulty(0));
+  }
+
+  @Test
+  void TestDifficultySurvivesRestart() throws IOException {
+    Path file = dir.resolve("q.difficulty");
+    double hardest;
+    try (DifficultyTracker tracker = new DifficultyTracker(11, file)) {
+      answer(tracker, 11);
+      tracker.fold();
+      hardest = tracker.getDifficulty(0);
+    }
+    DifficultyTracker reopened = new DifficultyTracker(11, file);
+    Assertions.assertEquals(hardest, reopened.getDifficulty(0), 1e-3);
+    // the stored totals are not replaced by the seed
+    reopened.seed(List.of(new QuestionStats(0, 100, 100)));
+    reopened.fold();
+    Assertions.assertEquals(hardest, reopened.getDifficulty(0), 1e-3);
+  }
+
+  @Test
+  void TestSeedIsUsedForNewQuestions() throws IOException {
+    DifficultyTracker tracker = new DifficultyTracker(2, dir.resolve("q.difficulty"));
+    tracker.seed(List.of(new QuestionStats(0, 100, 100), new QuestionStats(1, 100, 0)));
+    tracker.fold();
+    Assertions.assertTrue(tracker.getDifficulty(0) < DifficultyTracker.UNKNOWN);
+    Assertions.assertTrue(tracker.getDifficulty(1) > DifficultyTracker.UNKNOWN);
+  }
+
+  @Test
+  void TestWorkerCountsAreMerged() throws IOException {
+    Path file = dir.resolve("q.difficulty");
+    Path counts = dir.resolve("q.counts-1");
+    DifficultyTracker supervisor = new DifficultyTracker(11, file);
+    supervisor.mergeCountsFrom(List.of(counts, dir.resolve("q.counts-2")));
+    DifficultyTracker worker = new DifficultyTracker(11, file);
+    worker.shareCountsVia(counts);
+    answer(worker, 11);
+    worker.fold();
+    supervisor.fold();
+    Assertions.assertTrue(supervisor.getDifficulty(0) > supervisor.getDifficulty(10));
+    // the worker reads the merged scores back on its next fold
+    worker.fold();
+    Assertions.assertEquals(supervisor.getDifficulty(0), worker.getDifficulty(0), 1e-3);
+  }
+
+  @Test
+  void TestSamplerFollowsCurve() throws IOException {
+    DifficultyTracker tracker = new DifficultyTracker(11, dir.resolve("q.difficulty"));
+    answer(tracker, 11);
+    tracker.fold();
+    List<Question> game = new QuestionSampler(tracker, new Random(1))
+        .sample(catalog(11), 5, DifficultyCurve.ramp(0, 1));
+    Assertions.assertEquals(5, game.stream().map(Question::getId).distinct().count());
+    // easy (high id) questions first, hard ones at the end
+    Assertions.assertTrue(game.get(0).getId() >= 8);
+    Assertions.assertTrue(game.get(4).getId() <= 3);
+  }
+
+  @Test
+  void TestSamplerWithoutStatisticsTakesAllQuestions() throws IOException {
+    DifficultyTracker tracker = new DifficultyTracker(5, dir.resolve("q.difficulty"));
+    List<Question> game = new QuestionSampler(tracker)
+        .sample(catalog(5), 3, QuestionSampler.DEFAULT_CURVE);
+    Assertions.assertEquals(3, game.stream().distinct().count());
+  }
+}
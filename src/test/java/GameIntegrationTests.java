@@ -0,0 +1,109 @@
+import core.Question;
+import core.UserInterface;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import network.Client;
+import network.GameTimings;
+import network.Latency;
+import network.Server;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs whole games with a server and many clients in this JVM over loopback
+ * The players answer from a script, so the scores are known in advance
+ */
+class GameIntegrationTests {
+
+  private static final int PLAYERS = 24;
+  private static final int QUESTIONS = 8;
+  // p0 knows the first questions, p1 knows all of them but is slower
+  private static final int KNOWN_BY_P0 = 6;
+  private static final long SLOW_MILLIS = 250;
+  // upper limits for the phases, far above what a healthy game loop needs on loopback
+  private static final long MAX_JOIN_MILLIS = 5000;
+  private static final long MAX_BROADCAST_MILLIS = 100;
+  private static final long MAX_ANSWERS_MILLIS = SLOW_MILLIS + 1000;
+  private static final long MAX_LEADERBOARD_MILLIS = 500;
+
+  private static final UserInterface QUIET = new UserInterface() {
+    @Override
+    public void showMessage(String message) {
+      // keep the test output clean
+    }
+  };
+
+  private static List<Question> questions() {
+    List<Question> questions = new ArrayList<>();
+    for (int i = 0; i < QUESTIONS; i++) {
+      questions.add(new Question(i, "Question " + i, "a", "b", "c", 'A'));
+    }
+    return questions;
+  }
+
+  /**
+   * @return the answers of a player to all questions
+   */
+  private static List<String> script(int player) {
+    List<String> answers = new ArrayList<>();
+    for (int question = 0; question < QUESTIONS; question++) {
+      boolean knows = player == 1 || (player == 0 && question < KNOWN_BY_P0);
+      answers.add(knows ? "a" : "b");
+    }
+    return answers;
+  }
+
+  @Test
+  void TestFullGameScoresAndTimings() throws Exception {
+    Server server = new Server(QUIET, 0, PLAYERS, questions());
+    server.setPause(0);
+    Thread game = new Thread(server::run, "game");
+    game.start();
+
+    List<ScriptedPlayer> players = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < PLAYERS; i++) {
+      // a single game ignores room codes, so some players enter one
+      ScriptedPlayer player = new ScriptedPlayer("p" + i, i % 2 == 0 ? "" : "room", script(i),
+          i == 1 ? SLOW_MILLIS : 0);
+      Client client = new Client(player, server.getPort());
+      Thread thread = new Thread(client, "client-" + i);
+      thread.start();
+      players.add(player);
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(30));
+      Assertions.assertFalse(thread.isAlive(), thread.getName() + " did not finish");
+    }
+    Assertions.assertTrue(server.awaitTermination(10, TimeUnit.SECONDS));
+
+    for (ScriptedPlayer player : players) {
+      List<String> messages = player.getMessages();
+      Assertions.assertTrue(messages.contains("1. player p0 (" + KNOWN_BY_P0 + " points)"),
+          player.getName() + " got " + messages);
+      Assertions.assertTrue(
+          messages.contains("2. player p1 (" + (QUESTIONS - KNOWN_BY_P0) + " points)"));
+      Assertions.assertTrue(messages.contains("3. player p2 (0 points)"));
+      Assertions.assertTrue(messages.contains("Thanks for playing and goodbye"));
+      Assertions.assertFalse(messages.contains("ERROR Connection failed"));
+    }
+
+    GameTimings timings = server.getTimings();
+    Assertions.assertEquals(1, timings.getJoin().getCount());
+    Assertions.assertEquals(QUESTIONS, timings.getBroadcast().getCount());
+    Assertions.assertEquals(QUESTIONS, timings.getAnswers().getCount());
+    Assertions.assertEquals(1, timings.getLeaderboard().getCount());
+    assertBelow("join", timings.getJoin(), MAX_JOIN_MILLIS);
+    assertBelow("broadcast", timings.getBroadcast(), MAX_BROADCAST_MILLIS);
+    assertBelow("answers", timings.getAnswers(), MAX_ANSWERS_MILLIS);
+    assertBelow("leaderboard", timings.getLeaderboard(), MAX_LEADERBOARD_MILLIS);
+  }
+
+  private static void assertBelow(String phase, Latency timing, long maxMillis) {
+    Assertions.assertTrue(timing.getMaxNanos() < TimeUnit.MILLISECONDS.toNanos(maxMillis),
+        String.format("%s took %s, limit %d ms", phase, timing, maxMillis));
+  }
+}
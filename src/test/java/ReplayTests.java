@@ -0,0 +1,127 @@
+import core.Question;
+import core.UserInterface;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import network.Client;
+import network.GameRecorder;
+import network.Replay;
+import network.Server;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayTests {
+
+  private static final long MS = 1_000_000;
+
+  @TempDir
+  Path dir;
+
+  /**
+   * two rounds: in the first one Bob answers later but has a higher round trip, so he reacted
+   * faster, in the second one only Alice is correct
+   */
+  private Path recordGame(int alicePoints, int bobPoints) throws IOException {
+    Path file = dir.resolve("game.bin");
+    try (GameRecorder recorder = new GameRecorder(file)) {
+      recorder.connect(0, "Alice");
+      recorder.connect(1, "Bob");
+      recorder.question(new Question("First?", "yes", "no", "maybe", 'A'), 0);
+      recorder.answer(0, 100 * MS, 10 * MS, 'A', -1);
+      recorder.answer(1, 120 * MS, 60 * MS, 'A', -1);
+      recorder.question(new Question("Second?", "yes", "no", "maybe", 'B'), 1000 * MS);
+      recorder.answer(1, 1050 * MS, 60 * MS, 'C', 20 * MS);
+      recorder.answer(0, 1200 * MS, 10 * MS, 'B', 190 * MS);
+      recorder.score(0, alicePoints);
+      recorder.score(1, bobPoints);
+    }
+    return file;
+  }
+
+  @Test
+  void TestReplayMatchesRecording() throws IOException {
+    Replay.Result result = Replay.replay(recordGame(1, 1));
+    Assertions.assertEquals(2, result.rounds());
+    Assertions.assertEquals(4, result.answers());
+    Assertions.assertTrue(result.matches(), result.replayedScores().toString());
+  }
+
+  @Test
+  void TestReplayDetectsDifferentScoring() throws IOException {
+    Replay.Result result = Replay.replay(recordGame(2, 0));
+    Assertions.assertFalse(result.matches());
+  }
+
+  @Test
+  void TestInvalidRecording() throws IOException {
+    Path file = Files.writeString(dir.resolve("text.txt"), "no recording");
+    Assertions.assertThrows(IOException.class, () -> Replay.replay(file));
+  }
+
+  @Test
+  void TestTruncatedRecording() throws IOException {
+    Path file = recordGame(1, 1);
+    byte[] recording = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(recording, recording.length - 3));
+    IOException e = Assertions.assertThrows(IOException.class, () -> Replay.replay(file));
+    Assertions.assertTrue(e.getMessage().startsWith("Truncated recording"));
+  }
+
+  @Test
+  void TestCorruptRecording() throws IOException {
+    Path file = dir.resolve("game.bin");
+    try (GameRecorder recorder = new GameRecorder(file)) {
+      recorder.connect(0, "Alice");
+      recorder.answer(5, 100 * MS, 10 * MS, 'A', -1);
+    }
+    IOException e = Assertions.assertThrows(IOException.class, () -> Replay.replay(file));
+    Assertions.assertTrue(e.getMessage().startsWith("Invalid player 5"), e.getMessage());
+
+    // header, connect event of player 0 and a name claiming to be 2 GB long
+    ByteBuffer corrupt = ByteBuffer.wrap(Arrays.copyOf(Files.readAllBytes(file), 14));
+    corrupt.putInt(10, Integer.MAX_VALUE);
+    Files.write(file, corrupt.array());
+    e = Assertions.assertThrows(IOException.class, () -> Replay.replay(file));
+    Assertions.assertTrue(e.getMessage().startsWith("Truncated recording"), e.getMessage());
+  }
+
+  @Test
+  void TestRecordedLiveGameReplaysToSameScores() throws Exception {
+    Path file = dir.resolve("live.bin");
+    Server server = new Server(new UserInterface() {
+      @Override
+      public void showMessage(String message) {
+        // keep the test output clean
+      }
+    }, 0, 2, List.of(new Question(0, "First?", "yes", "no", "maybe", 'A'),
+        new Question(1, "Second?", "yes", "no", "maybe", 'B')));
+    server.setRecorder(new GameRecorder(file));
+    server.setPause(0);
+    new Thread(server::run, "game").start();
+    List<Thread> clients = new ArrayList<>();
+    for (ScriptedPlayer player : List.of(new ScriptedPlayer("Alice", "", List.of("a", "b"), 0),
+        new ScriptedPlayer("Bob", "", List.of("b", "b"), 50))) {
+      Thread client = new Thread(new Client(player, server.getPort()), player.getName());
+      client.start();
+      clients.add(client);
+    }
+    for (Thread client : clients) {
+      client.join(TimeUnit.SECONDS.toMillis(30));
+      Assertions.assertFalse(client.isAlive(), client.getName() + " did not finish");
+    }
+    Assertions.assertTrue(server.awaitTermination(10, TimeUnit.SECONDS));
+
+    Replay.Result result = Replay.replay(file);
+    Assertions.assertEquals(2, result.rounds());
+    Assertions.assertEquals(4, result.answers());
+    Assertions.assertEquals(Map.of("Alice", 2, "Bob", 0), result.recordedScores());
+    Assertions.assertTrue(result.matches(), result.replayedScores().toString());
+  }
+}
@@ -0,0 +1,109 @@
+import core.Question;
+import core.UserInterface;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import network.Acceptor;
+import network.AdmissionPolicy;
+import network.Client;
+import network.Router;
+import network.Shard;
+import network.ShardRing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RouterTests {
+
+  @Test
+  void TestSilentConnectionIsClosedAfterHandshakeTimeout() throws Exception {
+    // only one connection per address, so a silent one blocks the next until it is released
+    AdmissionPolicy admission = new AdmissionPolicy();
+    admission.setMaxPerAddress(1);
+    Router router = new Router(new UserInterface(), 0, Acceptor.DEFAULT_BACKLOG, new int[] {1},
+        admission);
+    router.setHandshakeTimeout(200);
+    new Thread(router, "router").start();
+    try {
+      for (int i = 0; i < 2; i++) {
+        try (Socket silent = new Socket(InetAddress.getLoopbackAddress(), router.getPort())) {
+          silent.setSoTimeout(5000);
+          InputStream in = silent.getInputStream();
+          long start = System.nanoTime();
+          Assertions.assertEquals(-1, in.read());
+          Assertions.assertTrue(System.nanoTime() - start >= 100_000_000L);
+        }
+        // the router releases the address right after closing, wait for it before the next one
+        while (!admission.admit(InetAddress.getLoopbackAddress())) {
+          Thread.sleep(10);
+        }
+        admission.release(InetAddress.getLoopbackAddress());
+      }
+    } finally {
+      router.close();
+    }
+  }
+
+  @Test
+  void TestRoomsArePlayedOnTheirShards() throws Exception {
+    UserInterface quiet = new UserInterface() {
+      @Override
+      public void showMessage(String message) {
+        // keep the test output clean
+      }
+    };
+    ShardRing ring = new ShardRing(2);
+    String[] rooms = {"room0", null};
+    for (int i = 1; rooms[1] == null; i++) {
+      if (ring.shardFor("room" + i) != ring.shardFor(rooms[0])) {
+        rooms[1] = "room" + i;
+      }
+    }
+    // each shard asks its own question, so the players can tell where their room runs
+    Shard[] shards = new Shard[2];
+    int[] shardPorts = new int[2];
+    for (int i = 0; i < shards.length; i++) {
+      List<Question> questions = List.of(new Question(i, "Question of shard " + i, "a", "b",
+          "c", 'A'));
+      shards[i] = new Shard(quiet, 0, 2, () -> questions);
+      shardPorts[i] = shards[i].getPort();
+      new Thread(shards[i], "shard-" + i).start();
+    }
+    Router router = new Router(quiet, 0, Acceptor.DEFAULT_BACKLOG, shardPorts,
+        new AdmissionPolicy());
+    new Thread(router, "router").start();
+    try {
+      List<ScriptedPlayer> players = new ArrayList<>();
+      List<Thread> threads = new ArrayList<>();
+      for (String room : rooms) {
+        for (String answer : List.of("a", "b")) {
+          ScriptedPlayer player = new ScriptedPlayer(room + "-" + answer, room, List.of(answer),
+              0);
+          Thread thread = new Thread(new Client(player, router.getPort()), player.getName());
+          thread.start();
+          players.add(player);
+          threads.add(thread);
+        }
+      }
+      for (Thread thread : threads) {
+        thread.join(TimeUnit.SECONDS.toMillis(30));
+        Assertions.assertFalse(thread.isAlive(), thread.getName() + " did not finish");
+      }
+      for (ScriptedPlayer player : players) {
+        String room = player.getName().substring(0, player.getName().indexOf('-'));
+        List<String> messages = player.getMessages();
+        Assertions.assertTrue(messages.contains("Question of shard " + ring.shardFor(room)),
+            player.getName() + " got " + messages);
+        Assertions.assertTrue(messages.contains("1. player " + room + "-a (1 points)"));
+        Assertions.assertTrue(messages.contains("2. player " + room + "-b (0 points)"));
+      }
+    } finally {
+      router.close();
+      for (Shard shard : shards) {
+        shard.drain(1, TimeUnit.SECONDS);
+      }
+    }
+  }
+}
@@ -0,0 +1,37 @@
+import network.RttEstimator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RttEstimatorTests {
+
+
+  @Test
+  void TestFirstSampleIsEstimate() {
+    RttEstimator rtt = new RttEstimator();
+    Assertions.assertEquals(0, rtt.getSmoothedNanos());
+    rtt.addSample(8_000_000);
+    Assertions.assertEquals(8_000_000, rtt.getSmoothedNanos());
+  }
+
+  @Test
+  void TestSpikeIsSmoothed() {
+    RttEstimator rtt = new RttEstimator();
+    rtt.addSample(8_000_000);
+    rtt.addSample(88_000_000);
+    Assertions.assertEquals(18_000_000, rtt.getSmoothedNanos());
+    Assertions.assertEquals(8_000_000, rtt.getMinNanos());
+  }
+
+  @Test
+  void TestHistoryKeepsRecentSamples() {
+    RttEstimator rtt = new RttEstimator();
+    for (int i = 1; i <= 40; i++) {
+      rtt.addSample(i);
+    }
+    long[] samples = rtt.getSamples();
+    Assertions.assertEquals(32, samples.length);
+    Assertions.assertEquals(9, samples[0]);
+    Assertions.assertEquals(40, samples[31]);
+    Assertions.assertEquals(40, rtt.getSampleCount());
+  }
+}
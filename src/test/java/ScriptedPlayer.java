@@ -0,0 +1,83 @@
+import core.UserInterface;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A player answering from a script, one line per answer prompt
+ */
+class ScriptedPlayer extends UserInterface {
+
+  private final String name;
+  private final String roomCode;
+  private final Deque<String> answers;
+  private final long delayMillis;
+  private final Semaphore prompts = new Semaphore(0);
+  private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+
+  ScriptedPlayer(String name, String roomCode, List<String> answers, long delayMillis) {
+    this.name = name;
+    this.roomCode = roomCode;
+    this.answers = new ArrayDeque<>(answers);
+    this.delayMillis = delayMillis;
+  }
+
+  List<String> getMessages() {
+    synchronized (messages) {
+      return new ArrayList<>(messages);
+    }
+  }
+
+  @Override
+  public String getServerIP() {
+    return "127.0.0.1";
+  }
+
+  @Override
+  public String getRoomCode() {
+    return roomCode;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void showAnswerPrompt() {
+    prompts.release();
+  }
+
+  /**
+   * called by the input thread of the client, waits for the prompt and thinks a moment
+   */
+  @Override
+  public String readLine() {
+    if (answers.isEmpty()) {
+      // ends the input thread
+      throw new NoSuchElementException();
+    }
+    try {
+      prompts.acquire();
+      Thread.sleep(delayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new NoSuchElementException();
+    }
+    return answers.poll();
+  }
+
+  @Override
+  public void showMessage(String message) {
+    messages.add(message);
+  }
+
+  @Override
+  public void showError(String message) {
+    messages.add("ERROR " + message);
+  }
+}
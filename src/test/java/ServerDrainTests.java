@@ -0,0 +1,103 @@
+import core.Question;
+import core.UserInterface;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import network.Server;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ServerDrainTests {
+
+  private static final UserInterface QUIET = new UserInterface() {
+    @Override
+    public void showMessage(String message) {
+      // keep the test output clean
+    }
+  };
+
+  private static Server startServer(int players) throws IOException {
+    Server server = new Server(QUIET, 0, players,
+        List.of(new Question("Question", "a", "b", "c", 'A')));
+    new Thread(server::run, "game").start();
+    return server;
+  }
+
+  private static Socket join(Server server, String name) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    socket.setSoTimeout(10_000);
+    new PrintWriter(socket.getOutputStream(), true).println("SetName:" + name);
+    return socket;
+  }
+
+  private static Future<Boolean> drainLater(Server server, long seconds) {
+    FutureTask<Boolean> drain = new FutureTask<>(() -> server.drain(seconds, TimeUnit.SECONDS));
+    new Thread(drain, "drain").start();
+    return drain;
+  }
+
+  /**
+   * read lines until one starts with the prefix
+   */
+  private static void waitFor(BufferedReader in, String prefix) throws IOException {
+    String line;
+    do {
+      line = in.readLine();
+      Assertions.assertNotNull(line, "connection closed before " + prefix);
+    } while (!line.startsWith(prefix));
+  }
+
+  /**
+   * read everything until the server closes its side
+   */
+  private static List<String> readToEnd(BufferedReader in) throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (String line = in.readLine(); line != null; line = in.readLine()) {
+      lines.add(line);
+    }
+    return lines;
+  }
+
+  @Test
+  void TestDrainCallsOffGameWaitingForPlayers() throws Exception {
+    Server server = startServer(2);
+    Future<Boolean> drained;
+    try (Socket alice = join(server, "Alice")) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(alice.getInputStream()));
+      waitFor(in, "Player Alice joined");
+      drained = drainLater(server, 5);
+      List<String> rest = readToEnd(in);
+      Assertions.assertTrue(rest.contains("The game was cancelled, the server is shutting down"));
+      Assertions.assertEquals("EndGame", rest.get(rest.size() - 1));
+    }
+    Assertions.assertTrue(drained.get());
+    // the handler stopped because the player closed, not after the timeout of the server
+    Assertions.assertTrue(server.awaitTermination(1, TimeUnit.SECONDS));
+    Assertions.assertFalse(server.isStarted());
+  }
+
+  @Test
+  void TestDrainTimeoutCancelsRunningGame() throws Exception {
+    Server server = startServer(1);
+    Future<Boolean> drained;
+    try (Socket alice = join(server, "Alice")) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(alice.getInputStream()));
+      waitFor(in, "All players have joined");
+      Assertions.assertTrue(server.isStarted());
+      drained = drainLater(server, 0);
+      List<String> rest = readToEnd(in);
+      Assertions.assertTrue(rest.contains("The game was cancelled, the server is shutting down"));
+      Assertions.assertEquals("EndGame", rest.get(rest.size() - 1));
+    }
+    Assertions.assertFalse(drained.get());
+    Assertions.assertTrue(server.awaitTermination(1, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,40 @@
+import network.ShardRing;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ShardRingTests {
+
+
+  @Test
+  void TestSameRoomSameShard() {
+    ShardRing ring = new ShardRing(4);
+    Assertions.assertEquals(ring.shardFor("quiz-42"), ring.shardFor("quiz-42"));
+  }
+
+  @Test
+  void TestRoomsSpreadOverAllShards() {
+    ShardRing ring = new ShardRing(4);
+    int[] rooms = new int[4];
+    for (int i = 0; i < 4000; i++) {
+      rooms[ring.shardFor("room" + i)]++;
+    }
+    for (int count : rooms) {
+      Assertions.assertTrue(count > 500, "shard got only " + count + " rooms");
+    }
+  }
+
+  @Test
+  void TestAddingShardMovesFewRooms() {
+    ShardRing before = new ShardRing(4);
+    ShardRing after = new ShardRing(5);
+    int moved = 0;
+    for (int i = 0; i < 4000; i++) {
+      String room = "room" + i;
+      if (before.shardFor(room) != after.shardFor(room)) {
+        moved++;
+      }
+    }
+    // ideally a fifth of the rooms move to the new shard
+    Assertions.assertTrue(moved < 1400, moved + " rooms moved");
+  }
+}
@@ -0,0 +1,100 @@
+import core.PlayerStats;
+import core.QuestionStats;
+import core.StatsStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatsStoreTests {
+
+  @TempDir
+  Path dir;
+
+  private static PlayerStats game(String name, int points) {
+    return new PlayerStats(name, 1, points, 5, points, 5_000_000_000L);
+  }
+
+  @Test
+  void TestStatisticsAreSummedUp() throws IOException {
+    try (StatsStore store = new StatsStore(dir)) {
+      store.record(game("Alice", 3));
+      store.record(game("Alice", 2));
+      store.record(new QuestionStats(7, 4, 1));
+      store.flush();
+      PlayerStats alice = store.get("Alice");
+      Assertions.assertEquals(2, alice.gamesPlayed());
+      Assertions.assertEquals(5, alice.points());
+      Assertions.assertEquals(1_000_000_000L, alice.getAverageReactionNanos());
+      Assertions.assertEquals(0.25, store.getQuestion(7).getCorrectRate());
+    }
+  }
+
+  @Test
+  void TestStatisticsSurviveRestart() throws IOException {
+    try (StatsStore store = new StatsStore(dir)) {
+      store.record(game("Alice", 3));
+      store.record(game("Bob", 4));
+    }
+    try (StatsStore store = new StatsStore(dir)) {
+      store.record(game("Alice", 2));
+      store.flush();
+      List<PlayerStats> ranking = store.ranking(5);
+      Assertions.assertEquals("Alice", ranking.get(0).name());
+      Assertions.assertEquals(5, ranking.get(0).points());
+      Assertions.assertEquals("Bob", ranking.get(1).name());
+    }
+  }
+
+  @Test
+  void TestCompactionKeepsTotals() throws IOException {
+    try (StatsStore store = new StatsStore(dir, 200)) {
+      for (int i = 0; i < 50; i++) {
+        store.record(game("Player" + (i % 5), 1));
+        store.flush();
+      }
+    }
+    try (StatsStore store = new StatsStore(dir)) {
+      Assertions.assertEquals(10, store.get("Player0").gamesPlayed());
+    }
+    try (var files = Files.list(dir)) {
+      Assertions.assertEquals(2, files.count(), "only the index and the current log remain");
+    }
+  }
+
+  @Test
+  void TestCutOffRecordIsIgnored() throws IOException {
+    try (StatsStore store = new StatsStore(dir, Long.MAX_VALUE)) {
+      store.record(game("Alice", 3));
+      store.flush();
+    }
+    //simulate a crash in the middle of writing a record
+    try (var files = Files.list(dir)) {
+      Path log = files.filter(f -> f.toString().endsWith(".log")).findFirst().orElseThrow();
+      Files.write(log, new byte[]{'P', 0, 0}, StandardOpenOption.APPEND);
+    }
+    try (StatsStore store = new StatsStore(dir)) {
+      Assertions.assertEquals(3, store.get("Alice").points());
+    }
+  }
+
+  @Test
+  void TestStoreRecoversFromFailedWrite() throws IOException {
+    // a directory in place of the temporary index lets the compaction after the write fail
+    Path blocker = Files.createDirectory(dir.resolve("stats.idx.tmp"));
+    try (StatsStore store = new StatsStore(dir, 1)) {
+      store.record(game("Alice", 3));
+      Assertions.assertThrows(IOException.class, store::flush);
+      Files.delete(blocker);
+      store.record(game("Alice", 2));
+      store.flush();
+    }
+    try (StatsStore store = new StatsStore(dir)) {
+      Assertions.assertEquals(5, store.get("Alice").points());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+import core.DifficultyTracker;
+import core.Question;
+import core.UserInterface;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import network.Client;
+import network.Supervisor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SupervisorTests {
+
+  private static final UserInterface QUIET = new UserInterface() {
+    @Override
+    public void showMessage(String message) {
+      // keep the test output clean
+    }
+  };
+
+  @TempDir
+  Path dir;
+
+  /**
+   * the supervisor needs consecutive ports, the one after a free port is usually free as well
+   */
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  @Test
+  void TestAnswerDuringDrainSurvivesRestart() throws Exception {
+    Path file = dir.resolve("q.difficulty");
+    DifficultyTracker difficulty = new DifficultyTracker(1, file);
+    int port = freePort();
+    Supervisor supervisor = new Supervisor(QUIET, port, 1);
+    supervisor.setDifficultyTracker(difficulty);
+    supervisor.startShards(1, () -> List.of(new Question(0, "Question", "a", "b", "c", 'A')));
+    // like Game, the tracker is closed as soon as the supervisor returns
+    Thread main = new Thread(() -> {
+      supervisor.run();
+      try {
+        difficulty.close();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }, "supervisor");
+    main.start();
+
+    ScriptedPlayer player = new ScriptedPlayer("p0", "room", List.of("a"), 500);
+    Thread client = null;
+    for (int attempt = 0; client == null; attempt++) {
+      try {
+        client = new Thread(new Client(player, port), "client");
+      } catch (IOException e) {
+        // the router is not listening yet
+        Assertions.assertTrue(attempt < 50, e.getMessage());
+        Thread.sleep(100);
+      }
+    }
+    client.start();
+    while (!player.getMessages().contains("Player p0 joined")) {
+      Thread.sleep(10);
+    }
+    FutureTask<Boolean> drain = new FutureTask<>(() -> supervisor.drain(30, TimeUnit.SECONDS));
+    new Thread(drain, "drain").start();
+    Future<Boolean> drained = drain;
+    Assertions.assertTrue(drained.get(30, TimeUnit.SECONDS));
+    main.join(TimeUnit.SECONDS.toMillis(10));
+    Assertions.assertFalse(main.isAlive());
+    client.join(TimeUnit.SECONDS.toMillis(10));
+    Assertions.assertTrue(player.getMessages().contains("1. player p0 (1 points)"),
+        player.getMessages().toString());
+
+    DifficultyTracker restarted = new DifficultyTracker(1, file);
+    Assertions.assertNotEquals(DifficultyTracker.UNKNOWN, restarted.getDifficulty(0), 1e-3);
+  }
+}
@@ -0,0 +1,29 @@
+import network.TokenBucket;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTests {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  void TestBurstThenLimited() {
+    TokenBucket bucket = new TokenBucket(2, 3, 0);
+    Assertions.assertTrue(bucket.tryAcquire(0));
+    Assertions.assertTrue(bucket.tryAcquire(0));
+    Assertions.assertTrue(bucket.tryAcquire(0));
+    Assertions.assertFalse(bucket.tryAcquire(0));
+  }
+
+  @Test
+  void TestRefillOverTime() {
+    TokenBucket bucket = new TokenBucket(2, 3, 0);
+    for (int i = 0; i < 3; i++) {
+      bucket.tryAcquire(0);
+    }
+    Assertions.assertTrue(bucket.tryAcquire(SECOND / 2));
+    Assertions.assertFalse(bucket.tryAcquire(SECOND / 2));
+    Assertions.assertFalse(bucket.isFull(SECOND));
+    Assertions.assertTrue(bucket.isFull(10 * SECOND));
+  }
+}
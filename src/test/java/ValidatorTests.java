@@ -27,4 +27,19 @@ class ValidatorTests {
     boolean result = Validator.isValidIP(ip);
     Assertions.assertFalse(result);
   }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"::1", "fe80::1", "2001:db8:0:0:0:0:0:1", "::", "::ffff:192.168.0.1",
+      "2001:db8::"})
+  void TestValidIPv6(String ip) {
+    Assertions.assertTrue(Validator.isValidIP(ip));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"01.0.0.1", "256.0.0.1", ":::", "1::2::3", "12345::", "fe80:",
+      "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7::8", "::g", "\u0661\u0662\u0667.0.0.1",
+      "\uff11.0.0.1", "fe80::\uff41"})
+  void TestInvalidIpVariants(String ip) {
+    Assertions.assertFalse(Validator.isValidIP(ip));
+  }
 }
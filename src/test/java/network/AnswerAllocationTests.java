@@ -0,0 +1,59 @@
+package network;
+
+import core.Question;
+import core.UserInterface;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that decoding and scoring answers does not allocate, lives in the network package to
+ * drive the server rounds without sockets
+ */
+class AnswerAllocationTests {
+
+  private static final int PLAYERS = 2000;
+
+  @Test
+  void TestAnswersDoNotAllocate() throws IOException {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assertions.assertTrue(threads.isThreadAllocatedMemorySupported());
+    Server server = new Server(new UserInterface() {
+      @Override
+      public void showMessage(String message) {
+        // keep the test output clean
+      }
+    }, PLAYERS, List.of());
+    ClientHandler[] players = new ClientHandler[PLAYERS];
+    for (int i = 0; i < PLAYERS; i++) {
+      //one answer for the warm up round and one for the measured round
+      players[i] = new ClientHandler(new StringReader("Answer:A:1500\nAnswer:B:2500\n"),
+          new PrintWriter(Writer.nullWriter()), server);
+      server.registerClient(i, players[i]);
+    }
+    Question question = new Question("Which?", "this", "that", "other", 'B');
+
+    server.beginRound(question);
+    for (ClientHandler player : players) {
+      player.handleNext();
+    }
+    server.finishRound(question);
+
+    server.beginRound(question);
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (ClientHandler player : players) {
+      player.handleNext();
+    }
+    long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+    server.finishRound(question);
+
+    Assertions.assertEquals(0, allocated, "bytes allocated for " + PLAYERS + " answers");
+    Assertions.assertEquals(1, players[0].getPoints());
+  }
+}